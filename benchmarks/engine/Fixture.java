@@ -0,0 +1,104 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static data.Constants.*;
+import data.PokemonData;
+import data.PokemonGame;
+import data.Sprite;
+import engine.RandomStreams.Stage;
+
+@State(Scope.Benchmark)
+public class Fixture
+{
+    // everything the stages need as input, built once per trial by running
+    // the pipeline up to that point with a fixed seed
+    // benchmarks that edit their input take fresh copies from here in their own states
+
+    @Param("rom\\source.gbc")
+    public String romPath;
+
+    @Param("rom\\rom.sav")
+    public String savPath;
+
+    @Param("1")
+    public long seed;
+
+    DataReader dataReader;
+    PokemonSorter<PokemonData> dataSorter;
+    RomImage rom;
+    RomImage sav;
+    RomSnapshot snapshot;
+
+    PokedexRandomizer dexRand;
+    PokemonGame[] mons;
+    PokemonGame[] starters;
+    MoveEditor moveEditor;
+    MoveSorter moveSorter;
+    Names names;
+    PokemonSorter monSorter;
+    PokemonTierList<PokemonGame> tierList;
+    TeamCustomizer teamCust;
+
+    PokemonGame[] team; // a party to customize
+    int[] lvls;
+    int[] picOffsets; // offsets of compressed pictures in the ROM
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        RandomStreams random = new RandomStreams(seed);
+
+        dataReader = new DataReader();
+        dataSorter = new PokemonSorter<>(dataReader.copyPokemonData());
+        rom = RomImage.load(new File(romPath));
+        sav = RomImage.load(new File(savPath));
+        snapshot = new RomSnapshot(new RomReader(rom));
+
+        dexRand = newPokedex();
+        PokemonEditor monEditor = new PokemonEditor(dexRand, random.stream(Stage.EGG_MOVES));
+        TrainerEditor trainerEditor = new TrainerEditor(snapshot, monEditor.getAllPokemon(), random.stream(Stage.TRAINERS));
+
+        mons = monEditor.getAllPokemon();
+        moveEditor = new MoveEditor(snapshot, random.stream(Stage.MOVES));
+        moveEditor.updateMoves();
+        moveSorter = new MoveSorter(moveEditor.getMoves(), moveEditor.getAllLearnable(), moveEditor.getCritAnims());
+        monEditor.fitEggMoves(moveEditor.getAllLearnableBytes());
+
+        names = new Names(mons, trainerEditor.getTrainers(), moveEditor.getMoves());
+        starters = monEditor.bytesToMon(snapshot.getStarters());
+        monSorter = dexRand.newSorter(starters);
+        tierList = new PokemonTierList<>(mons, BOT_BST, TOP_BST, N_TIERS);
+        teamCust = new TeamCustomizer(moveEditor.getMoves(), moveSorter, names, random.stream(Stage.TEAMS));
+
+        team = new PokemonGame[6];
+        lvls = new int[team.length];
+
+        for (int i = 0; i < team.length; i++) // spread over the whole Pokedex
+        {
+            team[i] = mons[(i * mons.length) / team.length + mons.length / (2 * team.length)];
+            lvls[i] = 50;
+        }
+
+        Sprite[] trainerSprites = snapshot.copyTrainerSprites();
+        picOffsets = new int[trainerSprites.length];
+
+        for (int i = 0; i < trainerSprites.length; i++)
+        {
+            picOffsets[i] = trainerSprites[i].getOffset()[0];
+        }
+    }
+
+    PokedexRandomizer newPokedex()
+    {
+        return new PokedexRandomizer(dataSorter, dataReader.copyPokemonData(), dataReader.copySprites(), dataReader.getPalettes(), new SplittableRandom(seed));
+    }
+}
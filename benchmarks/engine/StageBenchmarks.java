@@ -0,0 +1,227 @@
+package engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static data.Constants.*;
+import data.Move;
+import data.PokemonGame;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmarks
+{
+    // one benchmark per randomization stage, all fed from the same Fixture
+    // run from the repository root (DataReader reads pokemon_data relative to it)
+    // with the JMH jars on the class path, compiling both sources and benchmarks:
+    //     java engine.StageBenchmarks [regexp]
+    // the main method adds the gc profiler, so every result comes with its allocation rate
+    // the engine classes are package-private, so benchmarks return them as Object
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(StageBenchmarks.class.getSimpleName() + ((args.length > 0) ? "." + args[0] : ""))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    /////////////////////////////////////
+    // states for stages that edit their input
+    /////////////////////////////////////
+
+    @State(Scope.Thread)
+    public static class SpriteState
+    {
+        // packing only works out the offsets from the picture sizes, so every call on the same editor gives the same result
+        SpriteEditor spriteEditor;
+
+        @Setup(Level.Trial)
+        public void setup(Fixture f)
+        {
+            spriteEditor = new SpriteEditor(f.newPokedex(), f.snapshot);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EggMoveState
+    {
+        // egg moves are trimmed in place, so every call gets its own freshly randomized Pokedex,
+        // a batch of them built before each iteration instead of one before each call
+        static final int BATCH = 20;
+
+        PokemonEditor[] monEditors = new PokemonEditor[BATCH];
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setup(Fixture f)
+        {
+            for (int i = 0; i < BATCH; i++)
+            {
+                monEditors[i] = new PokemonEditor(f.newPokedex(), new SplittableRandom(f.seed));
+            }
+
+            next = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TrainerState
+    {
+        TrainerEditor trainerEditor;
+
+        @Setup(Level.Invocation)
+        public void setup(Fixture f)
+        {
+            trainerEditor = new TrainerEditor(f.snapshot, f.mons, new SplittableRandom(f.seed));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RomState
+    {
+        // one copy per iteration, so the banks are only duplicated on the first call
+        RomWriter romWriter;
+        SavePatcher savPatcher;
+
+        @Setup(Level.Iteration)
+        public void setup(Fixture f)
+        {
+            romWriter = new RomWriter(f.rom.copy());
+            savPatcher = new SavePatcher(f.sav.copy(), new SplittableRandom(f.seed));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RandomState
+    {
+        SplittableRandom rand;
+        int tier = 0;
+
+        @Setup(Level.Iteration)
+        public void setup(Fixture f)
+        {
+            rand = new SplittableRandom(f.seed);
+        }
+    }
+
+    /////////////////////////////////////
+    // ROM reading
+    /////////////////////////////////////
+
+    @Benchmark
+    public PokemonGame[] readRomPokemon(Fixture f) throws IOException
+    {
+        return new RomReader(f.rom).readRomPokemon();
+    }
+
+    @Benchmark
+    public int getPicSize(Fixture f) throws IOException
+    {
+        RomReader romReader = new RomReader(f.rom);
+        int size = 0;
+
+        for (int pos : f.picOffsets)
+        {
+            size += romReader.getPicSize(pos);
+        }
+
+        return size;
+    }
+
+    /////////////////////////////////////
+    // Pokedex stages
+    /////////////////////////////////////
+
+    @Benchmark
+    public Object packSprites(SpriteState s)
+    {
+        s.spriteEditor.packSprites();
+        return s.spriteEditor;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = EggMoveState.BATCH)
+    @Measurement(iterations = 5, batchSize = EggMoveState.BATCH)
+    public Object fitEggMoves(Fixture f, EggMoveState s)
+    {
+        // one iteration is a batch of calls, each on its own editor from the batch
+        PokemonEditor monEditor = s.monEditors[s.next++];
+        monEditor.fitEggMoves(f.moveEditor.getAllLearnableBytes());
+        return monEditor;
+    }
+
+    @Benchmark
+    public Object newPokemonSorter(Fixture f)
+    {
+        return f.dexRand.newSorter(f.starters);
+    }
+
+    @Benchmark
+    public PokemonGame getSameTier(Fixture f, RandomState s)
+    {
+        s.tier = (s.tier + 1) % N_TIERS;
+        return f.tierList.getSameTier(s.tier, true, false, s.rand);
+    }
+
+    /////////////////////////////////////
+    // trainer stages
+    /////////////////////////////////////
+
+    @Benchmark
+    public ArrayList<ArrayList<Move>> customize(Fixture f, RandomState s)
+    {
+        return f.teamCust.forStream(s.rand).customize(f.team, f.lvls, f.mons);
+    }
+
+    @Benchmark
+    public Object randomizePokemon(Fixture f, TrainerState s)
+    {
+        s.trainerEditor.randomizePokemon(f.monSorter, true, 2, true, true, true, new RandomStreams(f.seed), false);
+        return s.trainerEditor;
+    }
+
+    /////////////////////////////////////
+    // writing
+    /////////////////////////////////////
+
+    @Benchmark
+    public Object replaceAllPokemon(Fixture f, RomState s) throws IOException
+    {
+        s.romWriter.replaceAllPokemon(f.mons);
+        return s.romWriter;
+    }
+
+    @Benchmark
+    public Object updateChecksums(RomState s) throws IOException
+    {
+        s.savPatcher.updateChecksums();
+        return s.savPatcher;
+    }
+}
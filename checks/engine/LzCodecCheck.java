@@ -0,0 +1,79 @@
+package engine;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import data.Sprite;
+
+public class LzCodecCheck
+{
+    // round trip of every bundled picture through LzCodec
+    // each picture is decompressed and compressed again, and the new picture has to:
+    //     decompress to the same data
+    //     measure as its own length with size()
+    //     be no longer than the stock picture
+    // run from the repository root (DataReader reads pokemon_data relative to it):
+    //     java engine.LzCodecCheck
+
+    public static void main(String[] args) throws IOException
+    {
+        Sprite[][] sprites = new DataReader().copySprites();
+        String[] kinds =
+        {
+            "fronts", "backs", "Unown fronts", "Unown backs"
+        };
+        long[] stock = new long[kinds.length];
+        long[] recompressed = new long[kinds.length];
+        int failures = 0;
+
+        for (int i = 0; i < sprites.length; i++)
+        {
+            for (int j = 0; j < sprites[i].length; j++)
+            {
+                byte[][] pics =
+                {
+                    sprites[i][j].getFront(), sprites[i][j].getBack()
+                };
+
+                for (int k = 0; k < pics.length; k++)
+                {
+                    if (pics[k].length == 0)
+                    {
+                        continue; // placeholder for the Unown formes
+                    }
+
+                    byte[] data = LzCodec.decompress(pics[k]);
+                    byte[] pic = LzCodec.compress(data);
+                    String name = String.format("%s %d", kinds[2 * i + k], j);
+
+                    if (!Arrays.equals(LzCodec.decompress(pic), data))
+                    {
+                        System.out.println(name + ": doesn't decompress to the original data");
+                        failures++;
+                    }
+                    if (LzCodec.size(pic, 0) != pic.length)
+                    {
+                        System.out.println(name + ": measures " + LzCodec.size(pic, 0) + " bytes, is " + pic.length);
+                        failures++;
+                    }
+                    if (pic.length > pics[k].length)
+                    {
+                        System.out.println(name + ": " + pic.length + " bytes, stock is " + pics[k].length);
+                        failures++;
+                    }
+
+                    stock[2 * i + k] += pics[k].length;
+                    recompressed[2 * i + k] += pic.length;
+                }
+            }
+        }
+
+        for (int i = 0; i < kinds.length; i++)
+        {
+            System.out.printf("%-12s: %6d bytes, stock %6d%n", kinds[i], recompressed[i], stock[i]);
+        }
+
+        System.out.println((failures == 0) ? "OK" : failures + " failures");
+        System.exit((failures == 0) ? 0 : 1);
+    }
+}
@@ -0,0 +1,406 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+
+public class PatchWriterCheck
+{
+    // round trip of IPS and BPS patches written by PatchWriter
+    // each case writes to a copy of a synthetic source image, then both patches are applied to the source bytes
+    // with the appliers below, written from the formats and not from PatchWriter, and the result has to:
+    //     have the CRC32 of the target and the same bytes
+    //     for IPS, use as many run records as the case expects (-1 when it doesn't matter)
+    //     for BPS, carry the source, target and patch CRC32 in its trailer
+    // the source only holds bytes under 0x40 and the cases write bytes from 0x40 up, so what they write is a change,
+    // except where a case writes the source's own bytes, which have to stay out of the patches
+    // run from anywhere:
+    //     java engine.PatchWriterCheck
+
+    private static final int LENGTH = 0x200000 - 0x1234; // last bank shorter than the others
+    private static final int BANK = RomImage.BANK_SIZE;
+
+    private static int failures = 0;
+    private static int runRecords;
+
+    public static void main(String[] args) throws IOException
+    {
+        SplittableRandom rand = new SplittableRandom(25);
+        RomImage source = sourceImage(rand);
+        byte[] sourceBytes = source.read(0, source.length());
+        RomImage target;
+
+        target = source.copy();
+        check("nothing written", sourceBytes, source, target, 0);
+
+        // runs around IPS_MIN_RUN, each between bytes that differ from it
+        target = source.copy();
+        target.write(runBetween(PatchWriter.IPS_MIN_RUN - 1), 0x1000);
+        check("run of IPS_MIN_RUN - 1", sourceBytes, source, target, 0);
+
+        target = source.copy();
+        target.write(runBetween(PatchWriter.IPS_MIN_RUN), 0x1000);
+        check("run of IPS_MIN_RUN", sourceBytes, source, target, 1);
+
+        target = source.copy();
+        target.write(runBetween(PatchWriter.IPS_MIN_RUN + 1), 0x1000);
+        target.write(runBetween(PatchWriter.IPS_MIN_RUN), 0x2000);
+        target.write(runBetween(PatchWriter.IPS_MIN_RUN - 1), 0x3000);
+        check("runs in three ranges", sourceBytes, source, target, 2);
+
+        target = source.copy();
+        target.write(filled(PatchWriter.IPS_MIN_RUN, 0x55), 0x1000); // whole range is a run
+        target.write(concat(filled(PatchWriter.IPS_MIN_RUN, 0x55), randomBytes(rand, 7)), 0x2000); // run opens the range
+        target.write(concat(randomBytes(rand, 7), filled(PatchWriter.IPS_MIN_RUN, 0x55)), 0x3000); // run closes the range
+        check("runs at range ends", sourceBytes, source, target, 3);
+
+        // records and runs over IPS_MAX_RECORD, across banks
+        target = source.copy();
+        target.write(randomBytes(rand, PatchWriter.IPS_MAX_RECORD + 0x2345), 3 * BANK - 0x100);
+        check("record over IPS_MAX_RECORD", sourceBytes, source, target, 0);
+
+        target = source.copy();
+        target.write(filled(2 * PatchWriter.IPS_MAX_RECORD + 5, 0xAA), 9 * BANK + 0x10);
+        check("run over IPS_MAX_RECORD", sourceBytes, source, target, 2);
+
+        // dirty ranges at bank boundaries, written as single bytes, arrays and buffers
+        target = source.copy();
+        target.write((byte) 0x91, BANK - 1);
+        target.write((byte) 0xA2, BANK);
+        target.write(randomBytes(rand, 0x20), 2 * BANK - 0x10);
+        target.write(ByteBuffer.wrap(randomBytes(rand, 0x10)), 4 * BANK);
+        target.write(randomBytes(rand, 0x10), 5 * BANK - 0x10);
+        target.write(randomBytes(rand, 2 * BANK + 3), 6 * BANK - 1);
+        check("bank boundaries", sourceBytes, source, target, -1);
+
+        // first and last byte of the image, so BPS neither opens nor closes with a source read
+        target = source.copy();
+        target.write(randomBytes(rand, 3), 0);
+        target.write(randomBytes(rand, 3), LENGTH - 3);
+        check("image ends", sourceBytes, source, target, -1);
+
+        // BPS numbers of one, two and three bytes: a read of n bytes is written as (n - 1) << 2 | action,
+        // so reads of 32 / 33 and 4128 / 4129 bytes fall on either side of the 7 and 14 bit limits
+        target = source.copy();
+        int[] lengths =
+        {
+            32, 33, 4128, 4129, 1, 2
+        };
+        int pos = 0x100;
+
+        for (int n : lengths)
+        {
+            target.write(randomBytes(rand, n), pos); // target read of n bytes
+            pos += n + n; // then a source read of n bytes
+        }
+
+        check("BPS number lengths", sourceBytes, source, target, -1);
+
+        // bytes written with what was already there stay out of the patches
+        target = source.copy();
+        target.write(source.read(0x8000, 0x100), 0x8000);
+        check("unchanged writes", sourceBytes, source, target, 0);
+        checkLength("unchanged writes", PatchWriter.ips(source, target), PatchWriter.ips(source, source.copy()));
+        checkLength("unchanged writes", PatchWriter.bps(source, target), PatchWriter.bps(source, source.copy()));
+
+        // a bank cleared and written again with three bytes changed, 2 and 40 bytes apart:
+        // the first two share an IPS record, the third gets its own
+        target = source.copy();
+        target.write(new byte[BANK], 7 * BANK);
+        target.write(source.read(7 * BANK, BANK), 7 * BANK);
+        target.write((byte) 0xE1, 7 * BANK + 0x100);
+        target.write((byte) 0xE2, 7 * BANK + 0x102);
+        target.write((byte) 0xE3, 7 * BANK + 0x12A);
+        check("rewritten bank", sourceBytes, source, target, 0);
+
+        byte[] expectedIps = new byte[5 + (5 + 3) + (5 + 1) + 3]; // header, two records and the footer
+        checkLength("rewritten bank", PatchWriter.ips(source, target), expectedIps);
+
+        // copies of copies keep the dirty marks of the image they were made from
+        RomImage middle = source.copy();
+        middle.write(randomBytes(rand, 0x40), 0x10000);
+        target = middle.copy();
+        target.write(randomBytes(rand, 0x40), 0x30000);
+        check("copy of a copy", sourceBytes, source, target, -1);
+
+        // many scattered writes
+        target = source.copy();
+
+        for (int i = 0; i < 500; i++)
+        {
+            int at = rand.nextInt(LENGTH);
+            int n = Math.min(LENGTH - at, 1 + rand.nextInt((i % 10 == 0) ? 0x3000 : 0x40));
+            target.write(rand.nextBoolean() ? randomBytes(rand, n) : filled(n, rand.nextInt(0x100)), at);
+        }
+
+        check("scattered writes", sourceBytes, source, target, -1);
+
+        System.out.println((failures == 0) ? "OK" : failures + " failures");
+        System.exit((failures == 0) ? 0 : 1);
+    }
+
+    private static void check(String name, byte[] sourceBytes, RomImage source, RomImage target, int expectedRuns)
+    {
+        byte[] targetBytes = target.read(0, target.length());
+        byte[] ips = PatchWriter.ips(source, target);
+        byte[] bps = PatchWriter.bps(source, target);
+        byte[] fromIps = applyIps(sourceBytes, ips);
+        byte[] fromBps = applyBps(sourceBytes, bps);
+
+        System.out.printf("%-28s: IPS %7d bytes, %d runs, BPS %7d bytes%n", name, ips.length, runRecords, bps.length);
+
+        if (crc(fromIps) != target.crc32() || !Arrays.equals(fromIps, targetBytes))
+        {
+            System.out.println(name + ": IPS doesn't rebuild the target");
+            failures++;
+        }
+        if (expectedRuns >= 0 && runRecords != expectedRuns)
+        {
+            System.out.println(name + ": IPS has " + runRecords + " run records, expected " + expectedRuns);
+            failures++;
+        }
+        if (crc(fromBps) != target.crc32() || !Arrays.equals(fromBps, targetBytes))
+        {
+            System.out.println(name + ": BPS doesn't rebuild the target");
+            failures++;
+        }
+        if (crcAt(bps, bps.length - 12) != source.crc32())
+        {
+            System.out.println(name + ": BPS has the wrong source CRC32");
+            failures++;
+        }
+        if (crcAt(bps, bps.length - 8) != target.crc32())
+        {
+            System.out.println(name + ": BPS has the wrong target CRC32");
+            failures++;
+        }
+        if (crcAt(bps, bps.length - 4) != crc(Arrays.copyOf(bps, bps.length - 4)))
+        {
+            System.out.println(name + ": BPS has the wrong patch CRC32");
+            failures++;
+        }
+    }
+
+    private static void checkLength(String name, byte[] patch, byte[] expected)
+    {
+        if (patch.length != expected.length)
+        {
+            System.out.println(name + ": patch of " + patch.length + " bytes, expected " + expected.length);
+            failures++;
+        }
+    }
+
+    /////////////////////////////////////
+    // appliers
+    /////////////////////////////////////
+
+    private static byte[] applyIps(byte[] source, byte[] patch)
+    {
+        byte[] out = source.clone();
+        int i = 5;
+        runRecords = 0;
+
+        if (!new String(patch, 0, 5, StandardCharsets.US_ASCII).equals("PATCH"))
+        {
+            throw new IllegalStateException("Missing IPS header");
+        }
+
+        while (!(i + 3 == patch.length && new String(patch, i, 3, StandardCharsets.US_ASCII).equals("EOF")))
+        {
+            int offset = bigEndian(patch, i, 3);
+            int size = bigEndian(patch, i + 3, 2);
+            i += 5;
+
+            if (size == 0)
+            {
+                int run = bigEndian(patch, i, 2);
+                Arrays.fill(out, offset, offset + run, patch[i + 2]);
+                runRecords++;
+                i += 3;
+            }
+            else
+            {
+                System.arraycopy(patch, i, out, offset, size);
+                i += size;
+            }
+        }
+
+        return out;
+    }
+
+    private static byte[] applyBps(byte[] source, byte[] patch)
+    {
+        if (!new String(patch, 0, 4, StandardCharsets.US_ASCII).equals("BPS1"))
+        {
+            throw new IllegalStateException("Missing BPS header");
+        }
+
+        int[] at =
+        {
+            4 // position in the patch, after the header
+        };
+        long sourceSize = readNumber(patch, at);
+        long targetSize = readNumber(patch, at);
+        long metadataSize = readNumber(patch, at);
+        at[0] += (int) metadataSize;
+
+        if (sourceSize != source.length)
+        {
+            throw new IllegalStateException("BPS source size " + sourceSize + ", source is " + source.length);
+        }
+
+        byte[] out = new byte[(int) targetSize];
+        int outPos = 0;
+
+        while (at[0] < patch.length - 12)
+        {
+            long command = readNumber(patch, at);
+            int len = (int) (command >>> 2) + 1;
+
+            switch ((int) (command & 3))
+            {
+                case 0: // source read
+                    System.arraycopy(source, outPos, out, outPos, len);
+                    break;
+                case 1: // target read
+                    System.arraycopy(patch, at[0], out, outPos, len);
+                    at[0] += len;
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected BPS command " + (command & 3));
+            }
+
+            outPos += len;
+        }
+
+        if (outPos != out.length)
+        {
+            throw new IllegalStateException("BPS commands cover " + outPos + " bytes of " + out.length);
+        }
+
+        return out;
+    }
+
+    private static long readNumber(byte[] patch, int[] at)
+    {
+        long n = 0;
+        long shift = 1;
+
+        while (true)
+        {
+            int x = patch[at[0]++] & 0xFF;
+            n += (x & 0x7F) * shift;
+
+            if ((x & 0x80) != 0)
+            {
+                return n;
+            }
+
+            shift <<= 7;
+            n += shift;
+        }
+    }
+
+    /////////////////////////////////////
+    // helpers
+    /////////////////////////////////////
+
+    private static RomImage sourceImage(SplittableRandom rand) throws IOException
+    {
+        // random bytes under 0x40 with some stretches of zeroes, loaded from a file like a real ROM
+        byte[] data = new byte[LENGTH];
+
+        for (int i = 0; i < LENGTH; i += 1 + rand.nextInt(4))
+        {
+            data[i] = (byte) rand.nextInt(0x40);
+        }
+
+        File file = File.createTempFile("PatchWriterCheck", ".gbc");
+        file.deleteOnExit();
+        RomImage.writeFile(file, ByteBuffer.wrap(data));
+        return RomImage.load(file);
+    }
+
+    private static byte[] runBetween(int n)
+    {
+        // a run of n bytes with two different bytes on each side
+        byte[] before =
+        {
+            0x41, 0x42
+        };
+        byte[] after =
+        {
+            0x43, 0x44
+        };
+
+        return concat(before, concat(filled(n, 0x55), after));
+    }
+
+    private static byte[] filled(int n, int b)
+    {
+        byte[] out = new byte[n];
+        Arrays.fill(out, (byte) b);
+        return out;
+    }
+
+    private static byte[] randomBytes(SplittableRandom rand, int n)
+    {
+        // bytes from 0x40 up, no two neighbours equal, so none of it reads as a run
+        byte[] out = new byte[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            out[i] = (byte) (0x40 + rand.nextInt(0xC0));
+
+            if (i > 0 && out[i] == out[i - 1])
+            {
+                out[i] ^= 1;
+            }
+        }
+
+        return out;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b)
+    {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static int bigEndian(byte[] data, int pos, int nBytes)
+    {
+        int x = 0;
+
+        for (int i = 0; i < nBytes; i++)
+        {
+            x = (x << 8) | (data[pos + i] & 0xFF);
+        }
+
+        return x;
+    }
+
+    private static long crcAt(byte[] data, int pos)
+    {
+        // little-endian
+        long x = 0;
+
+        for (int i = 3; i >= 0; i--)
+        {
+            x = (x << 8) | (data[pos + i] & 0xFF);
+        }
+
+        return x;
+    }
+
+    private static long crc(byte[] data)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
@@ -2,6 +2,7 @@ package data;
 
 import static java.lang.Math.*;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 public class Constants
 {
@@ -434,49 +435,20 @@ public class Constants
         return res;
     }
 
-    public static Byte[] convertByteArray(byte[] byteArray)
+    public static byte[][] copyArray(byte[][] x)
     {
-        Byte[] out = new Byte[byteArray.length];
-        int n = 0;
+        // copies the outer and inner arrays
+        byte[][] out = new byte[x.length][];
 
-        for (byte i : byteArray)
-        {
-            out[n] = i;
-            n++;
-        }
-
-        return out;
-    }
-
-    public static byte[] convertByteArray(Byte[] byteArray)
-    {
-        byte[] out = new byte[byteArray.length];
-        int n = 0;
-
-        for (Byte b : byteArray)
-        {
-            out[n] = b;
-            n++;
-        }
-
-        return out;
-    }
-
-    public static int[] convertIntArray(Integer[] intArray)
-    {
-        int[] out = new int[intArray.length];
-        int n = 0;
-
-        for (Integer i : intArray)
+        for (int i = 0; i < x.length; i++)
         {
-            out[n] = i;
-            n++;
+            out[i] = x[i].clone();
         }
 
         return out;
     }
 
-    public static int[] shuffleArray(int[] array)
+    public static int[] shuffleArray(int[] array, SplittableRandom rand)
     {
         int n = array.length;
         int[] arrayOut = array;
@@ -485,7 +457,7 @@ public class Constants
         for (int i = 0; i < arrayOut.length; i++)
         {
             // Get a random index of the array past the current index.
-            int randomValue = i + (int) floor(random() * (n - i));
+            int randomValue = i + rand.nextInt(n - i);
             // Swap the random element with the present element.
             int randomElement = arrayOut[randomValue];
             arrayOut[randomValue] = arrayOut[i];
@@ -495,7 +467,7 @@ public class Constants
         return arrayOut;
     }
 
-    public static byte[] shuffleArray(byte[] array)
+    public static byte[] shuffleArray(byte[] array, SplittableRandom rand)
     {
         int n = array.length;
         byte[] arrayOut = array;
@@ -504,7 +476,7 @@ public class Constants
         for (int i = 0; i < arrayOut.length; i++)
         {
             // Get a random index of the array past the current index.
-            int randomValue = i + (int) floor(random() * (n - i));
+            int randomValue = i + rand.nextInt(n - i);
             // Swap the random element with the present element.
             byte randomElement = arrayOut[randomValue];
             arrayOut[randomValue] = arrayOut[i];
@@ -514,7 +486,7 @@ public class Constants
         return arrayOut;
     }
 
-    public static Type[] shuffleArray(Type[] array)
+    public static Type[] shuffleArray(Type[] array, SplittableRandom rand)
     {
         int n = array.length;
         Type[] arrayOut = array;
@@ -523,7 +495,7 @@ public class Constants
         for (int i = 0; i < arrayOut.length; i++)
         {
             // Get a random index of the array past the current index.
-            int randomValue = i + (int) floor(random() * (n - i));
+            int randomValue = i + rand.nextInt(n - i);
             // Swap the random element with the present element.
             Type randomElement = arrayOut[randomValue];
             arrayOut[randomValue] = arrayOut[i];
@@ -614,13 +586,13 @@ public class Constants
         return res;
     }
     
-    public static <T> T randomElement(T[] arr)
+    public static <T> T randomElement(T[] arr, SplittableRandom rand)
     {
-        return (arr[(int) floor(arr.length * random())]);
+        return (arr[rand.nextInt(arr.length)]);
     }
     
-    public static <T> T randomElement(ArrayList<T> list)
+    public static <T> T randomElement(ArrayList<T> list, SplittableRandom rand)
     {
-        return (list.get((int) floor(list.size() * random())));
+        return (list.get(rand.nextInt(list.size())));
     }
 }
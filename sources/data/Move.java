@@ -16,6 +16,7 @@ public class Move extends Tierable
     private byte[] name;
 
     private int calcPower = 0; // calculated power
+    private boolean effectShared = false; // effect is still shared with the move this was copied from
 
     public Move(int index, byte animIndex, byte[] effect, byte basePower, byte typeCat, byte acc, byte pP)
     {
@@ -32,6 +33,32 @@ public class Move extends Tierable
         setValue();
     }
 
+    private Move(Move move)
+    {
+        this.index = move.index;
+
+        this.animIndex = move.animIndex;
+        this.effect = move.effect;
+        this.basePower = move.basePower;
+        this.typeCat = move.typeCat;
+        this.type = move.type;
+        this.acc = move.acc;
+        this.pP = move.pP;
+        this.tier = move.tier;
+        this.name = move.name;
+        this.calcPower = move.calcPower;
+
+        this.value = move.value;
+    }
+
+    public synchronized Move copy()
+    {
+        // copy-on-write copy, the effect bytes are only duplicated when either move changes them
+        Move out = new Move(this);
+        this.effectShared = out.effectShared = true;
+        return out;
+    }
+
     /////////////////////////////////////////////
     // Return value methods
     /////////////////////////////////////////////
@@ -144,12 +171,23 @@ public class Move extends Tierable
 
     public void setEffect(byte eff)
     {
-        this.effect[0] = eff;
+        writableEffect()[0] = eff;
     }
 
     public void setEffectChance(byte effC)
     {
-        this.effect[1] = effC;
+        writableEffect()[1] = effC;
+    }
+
+    private byte[] writableEffect()
+    {
+        if (effectShared)
+        {
+            this.effect = this.effect.clone();
+            effectShared = false;
+        }
+
+        return this.effect;
     }
 
     public void setTypeCat(byte typeCat)
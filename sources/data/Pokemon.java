@@ -1,6 +1,5 @@
 package data;
 
-import java.util.ArrayList;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
@@ -24,15 +23,18 @@ public abstract class Pokemon extends Tierable
     protected byte[] eggMove;
     protected byte[] eggMoveCarry; // egg moves that it can carry from itself or pre-evolutions
 
-    protected int typeTier = 0; // tier list to compare strengths for same type
-
     protected byte[] preEvo = new byte[0]; // lists pre-evolution
     protected byte[] name;
     protected byte icon;
 
     protected Type[] types = new Type[2];
 
-    protected boolean[] tmhmComp = new boolean[N_TM + N_HM + N_MOVE_TUTOR];
+    protected long tmhmComp = 0; // bit i set if compatible with TM/HM/tutor slot i (N_TM + N_HM + N_MOVE_TUTOR bits)
+
+    // arrays edited in place that are still shared with the Pokemon this one was copied from,
+    // they are only duplicated on the first write
+    protected boolean miscShared = false;
+    protected boolean moveShared = false;
 
     /////////////////////////////////////////////
     // Return value methods
@@ -75,6 +77,11 @@ public abstract class Pokemon extends Tierable
         return this.gfx;
     }
 
+    public byte[] getCompatibilityBytes() // TM/HM compatibility as read
+    {
+        return this.tmhmByte;
+    }
+
     public boolean hasEvos()
     {
         return (evo[0].length != 0);
@@ -150,11 +157,6 @@ public abstract class Pokemon extends Tierable
         return BST;
     }
 
-    public int getTypeTier()
-    {
-        return this.typeTier;
-    }
-
     public boolean isLegendary()
     {
         boolean out = false; // assume it isn't legendary
@@ -187,32 +189,24 @@ public abstract class Pokemon extends Tierable
         return this.icon;
     }
 
-    public boolean[] getCompatibilities()
+    public long getCompatibilities()
     {
         return this.tmhmComp;
     }
 
+    public boolean isCompatible(int n)
+    {
+        return (tmhmComp & (1L << n)) != 0;
+    }
+
     public byte[] getCompatibilitiesByte()
     {
         int nBytes = 8;
         byte[] out = new byte[nBytes];
 
-        for (int i = 0; i < out.length; i++) // cycle bytes
+        for (int i = 0; i < out.length; i++) // cycle bytes, lowest slots first
         {
-            out[i] = 0x00; // initialize to zero
-
-            for (int j = 0; j < 8; j++) // cycle bits
-            {
-                if (8 * i + j >= tmhmComp.length)
-                {
-                    break; // avoid array out of bounds
-                }
-                if (tmhmComp[8 * i + j]) // if this TM is compatible
-                {
-                    byte addTerm = 0x01;
-                    out[i] += addTerm << j; // shift bits to right
-                }
-            }
+            out[i] = (byte) (tmhmComp >>> (8 * i));
         }
 
         return out;
@@ -220,7 +214,6 @@ public abstract class Pokemon extends Tierable
 
     public byte[] getMovesUpToLevel(byte lvl) // gets moves learned at and before lvl only for this stage
     {
-        ArrayList<Byte> movesOut = new ArrayList<>();
         int n = this.move.length - 1; // index to start decreasing moveset
 
         // find index of the highest level move before lvl
@@ -229,14 +222,15 @@ public abstract class Pokemon extends Tierable
             n--;
         }
 
-        // get moves before that level
-        while (n >= 0)
+        // get moves before that level, latest first
+        byte[] movesOut = new byte[n + 1];
+
+        for (int i = 0; i <= n; i++)
         {
-            movesOut.add(move[n][1]);
-            n--;
+            movesOut[i] = move[n - i][1];
         }
 
-        return convertByteArray(movesOut.toArray(new Byte[0]));
+        return movesOut;
     }
 
     public byte[][] getMovesUpToLevel(Pokemon[] mons, byte lvl) // gets all moves learned at and before lvl including pre-evolutions
@@ -352,17 +346,30 @@ public abstract class Pokemon extends Tierable
 
     public void setMisc(int n, byte value)
     {
+        if (miscShared)
+        {
+            this.misc = this.misc.clone();
+            miscShared = false;
+        }
+
         this.misc[n] = value;
     }
 
     public void setMove(int n, byte[] move)
     {
+        if (moveShared)
+        {
+            this.move = this.move.clone(); // the entries themselves are replaced, never edited
+            moveShared = false;
+        }
+
         this.move[n] = move;
     }
 
     public void setMoves(byte[][] moves)
     {
         this.move = moves;
+        moveShared = false;
     }
 
     protected final void resolveType()
@@ -395,11 +402,6 @@ public abstract class Pokemon extends Tierable
         this.eggMoveCarry = eggMoves;
     }
 
-    public void setTypeTier(int typeTier)
-    {
-        this.typeTier = typeTier;
-    }
-
     public void setName(byte[] name)
     {
         this.name = name;
@@ -410,16 +412,6 @@ public abstract class Pokemon extends Tierable
         this.icon = icon;
     }
 
-    public void setOldTier(int oldTier)
-    {
-        this.oldTier = oldTier;
-    }
-
-    public void setOldTypeTier(int oldTypeTier)
-    {
-        this.oldTypeTier = oldTypeTier;
-    }
-    
     @Override
     public final void setValue()
     {
@@ -28,6 +28,23 @@ public class PokemonData extends Pokemon
                 setValue();
 	}
 	
+	public synchronized PokemonData copy()
+	{
+		// copy-on-write copy with its own tiers, so it can be edited without touching this one
+		// arrays that are only ever replaced are shared as they are
+		PokemonData mon = new PokemonData(trueIndex, base, typeByte, misc, gfx, tmhmByte, evo, evoIndex, move);
+		mon.setPreEvoIndex(preEvoIndex);
+		mon.setEggMoves(eggMove);
+		mon.setEggMovesCarry(eggMoveCarry);
+		mon.setName(name);
+		mon.setIcon(icon);
+		mon.tier = tier;
+		
+		this.miscShared = mon.miscShared = true;
+		this.moveShared = mon.moveShared = true;
+		return mon;
+	}
+	
 	public PokemonGame convertPokemon(int newIndex, byte[][] newEvo, byte[] newPreEvo)
 	{	
 		PokemonGame mon = new PokemonGame(newIndex, trueIndex, base, typeByte, misc, gfx, tmhmByte, newEvo, move);
@@ -36,6 +53,9 @@ public class PokemonData extends Pokemon
 		mon.setPreEvo(newPreEvo);
 		mon.setName(name);
 		mon.setIcon(icon);
+		
+		this.miscShared = mon.miscShared = true;
+		this.moveShared = mon.moveShared = true;
 		return mon;
 	}
 	
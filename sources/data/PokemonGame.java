@@ -83,15 +83,28 @@ public class PokemonGame extends Pokemon
     /////////////////////////////////////////////	
     private void convertCompatibilities()
     {
-        for (int i = 0; i < tmhmComp.length; i++)
+        tmhmComp = 0;
+
+        for (int i = 0; i < N_TM + N_HM + N_MOVE_TUTOR; i++)
         {
             byte thisBit = getBit(tmhmByte[(int) floor(i / 8)], i % 8);
-            tmhmComp[i] = (thisBit != 0);
+
+            if (thisBit != 0)
+            {
+                tmhmComp |= 1L << i;
+            }
         }
     }
 
     public void setCompatibility(int n, boolean isCompatible)
     {
-        this.tmhmComp[n] = isCompatible;
+        if (isCompatible)
+        {
+            this.tmhmComp |= 1L << n;
+        }
+        else
+        {
+            this.tmhmComp &= ~(1L << n);
+        }
     }
 }
@@ -1,8 +1,9 @@
 package data;
 
-import java.util.ArrayList;
 
 import static data.Constants.*;
+import util.ByteList;
+import util.IdSet;
 
 public class Route
 {
@@ -11,8 +12,13 @@ public class Route
     private byte[] poke; // index of pokemon 
     private byte[] lvl; // index of levels
 
-    private Byte[] pokeList; // lists each Pokémon once
-    private Byte[][] pokeSlot; // lists the position of each Pokemon listed
+    private byte[] pokeList; // lists each Pokémon once
+    private byte[][] pokeSlot; // lists the position of each Pokemon listed
+
+    // arrays still shared with the route this was copied from, only duplicated on the first write
+    // pokeSlot is never edited, so it stays shared
+    private boolean pokeShared = false;
+    private boolean lvlShared = false;
 
     public static int[] indexBreaks = getIndexBreaks(); // store the indices where routes change
 
@@ -24,6 +30,24 @@ public class Route
         setAllSlots(poke);
     }
 
+    private Route(Route route)
+    {
+        this.index = route.index;
+        this.poke = route.poke;
+        this.lvl = route.lvl;
+        this.pokeList = route.pokeList;
+        this.pokeSlot = route.pokeSlot;
+    }
+
+    public synchronized Route copy()
+    {
+        // copy-on-write copy
+        Route out = new Route(this);
+        this.pokeShared = out.pokeShared = true;
+        this.lvlShared = out.lvlShared = true;
+        return out;
+    }
+
     private static int[] getIndexBreaks()
     {
         int[] indexBreaks = new int[N_WILD_ROUTES.length];
@@ -87,24 +111,26 @@ public class Route
 
     private void setAllSlots(byte[] poke)
     {
-        ArrayList<Byte> pokeChecked = new ArrayList<>(); // list to keep track of checked Pokemon
+        IdSet pokeChecked = new IdSet(0x100); // set to keep track of checked Pokemon
+        ByteList pokeFound = new ByteList(poke.length);
 
         for (byte i : poke)
         {
-            if (!pokeChecked.contains(i)) // hasn't checked yet
+            if (!pokeChecked.contains(byteToValue(i))) // hasn't checked yet
             {
-                pokeChecked.add(i);
+                pokeChecked.add(byteToValue(i));
+                pokeFound.add(i);
             }
         }
 
-        Byte[] holderArray = pokeChecked.toArray(new Byte[0]);
-        this.pokeList = holderArray;
+        this.pokeList = pokeFound.toArray();
 
-        Byte[][] pokeSlot = new Byte[pokeList.length][];
+        byte[][] pokeSlot = new byte[pokeList.length][];
+        ByteList slotPos = new ByteList(poke.length); // position of each species
 
         for (byte i = 0; i < this.pokeList.length; i++)
         {
-            ArrayList<Byte> slotPos = new ArrayList<>(); // position of each species
+            slotPos.clear();
 
             for (byte j = i; j < poke.length; j++)
             {
@@ -113,8 +139,7 @@ public class Route
                     slotPos.add(j); // add the position of the Pokemon
                 }
             }
-            holderArray = slotPos.toArray(new Byte[0]);
-            pokeSlot[i] = holderArray;
+            pokeSlot[i] = slotPos.toArray();
         }
 
         this.pokeSlot = pokeSlot;
@@ -135,34 +160,54 @@ public class Route
         return this.pokeList[n];
     }
 
+    private void unsharePoke()
+    {
+        if (pokeShared) // pokeList follows poke
+        {
+            this.poke = this.poke.clone();
+            this.pokeList = this.pokeList.clone();
+            pokeShared = false;
+        }
+    }
+
     // set Pokemon data individually
     public void setPoke(int n, int pokeIndex)
     {
+        unsharePoke();
         this.poke[n] = valueToByte(pokeIndex);
     }
 
     public void setLvl(int n, byte lvl)
     {
+        if (lvlShared)
+        {
+            this.lvl = this.lvl.clone();
+            lvlShared = false;
+        }
+
         this.lvl[n] = lvl;
     }
 
     // set Pokemon data in bulk
     public void setPokes(byte[] poke)
     {
+        unsharePoke();
         this.poke = poke;
     }
 
     public void setLvls(byte[] lvl)
     {
         this.lvl = lvl;
+        lvlShared = false;
     }
 
     // set Pokemon in slots
     public void setSlot(int pokeSlotPos, int pokeIndex)
     {
+        unsharePoke();
         this.pokeList[pokeSlotPos] = valueToByte(pokeIndex); // substitute it in the species list
         
-        for (Byte b : this.pokeSlot[pokeSlotPos]) // loop through the slots of this Pokemon in the list
+        for (byte b : this.pokeSlot[pokeSlotPos]) // loop through the slots of this Pokemon in the list
         {
             this.poke[byteToValue(b)] = valueToByte(pokeIndex); // substitute each position listed for this species
         }
@@ -10,6 +10,7 @@ public class Sprite
     byte[] back; // back sprite
     byte dim; // dimension of sprite (55, 66 or 77)
     int[] offset; // offset [front sprite, back sprite]
+    boolean offsetShared = false; // offset is still shared with the sprite this was copied from
 
     public Sprite(byte[] front, byte[] back, byte dim, int[] offset)
     {
@@ -27,6 +28,15 @@ public class Sprite
         this.offset = offset;
     }
 
+    public synchronized Sprite copy()
+    {
+        // copy-on-write copy, the sprite data is never edited
+        // and the offsets are only duplicated when either sprite changes them
+        Sprite out = new Sprite(front, back, dim, offset);
+        this.offsetShared = out.offsetShared = true;
+        return out;
+    }
+
     public byte[] getFront()
     {
         return this.front;
@@ -57,6 +67,12 @@ public class Sprite
 
     public void setOffset(int n, int pos)
     {
+        if (offsetShared)
+        {
+            this.offset = this.offset.clone();
+            offsetShared = false;
+        }
+
         this.offset[n] = pos;
     }
 
@@ -4,8 +4,6 @@ public abstract class Tierable
 {
     protected int tier = 0; // tier list to compare strengths
     protected int value;
-    protected int oldTier = -1; // tier list to compare strengths replaced
-    protected int oldTypeTier = -1; // tier list to compare strengths for same type from replaced
     
     public abstract void setValue();
 
@@ -24,15 +22,5 @@ public abstract class Tierable
         return value;
     }
     
-    public int getOldTier()
-    {
-        return this.oldTier;
-    }
-
-    public int getOldTypeTier()
-    {
-        return this.oldTypeTier;
-    }
-    
     abstract public int getTrueIndex();
 }
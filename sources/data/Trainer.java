@@ -11,6 +11,7 @@ public class Trainer
     private Kind trnKind; // whether the trainer has custom moves/items
     private byte statExp; // stat exp byte
     private byte[][] party = null; // [Party slot][Level, Species, Item, Moves]
+    private boolean partyShared = false; // party is still shared with the trainer this was copied from
 
     public Trainer(int index, int offset, byte[] name, byte kindByte, byte statExp, byte[][] party)
     {
@@ -22,6 +23,24 @@ public class Trainer
         this.party = party;
     }
 
+    private Trainer(Trainer trainer)
+    {
+        this.index = trainer.index;
+        this.offset = trainer.offset;
+        this.name = trainer.name;
+        this.trnKind = trainer.trnKind;
+        this.statExp = trainer.statExp;
+        this.party = trainer.party;
+    }
+
+    public synchronized Trainer copy()
+    {
+        // copy-on-write copy, the party is only duplicated when either trainer edits it
+        Trainer out = new Trainer(this);
+        this.partyShared = out.partyShared = true;
+        return out;
+    }
+
     public enum Kind
     {
         NONE(0),
@@ -163,25 +182,36 @@ public class Trainer
         this.statExp = statExp;
     }
 
+    private byte[][] writableParty()
+    {
+        if (partyShared)
+        {
+            this.party = copyArray(this.party);
+            partyShared = false;
+        }
+
+        return this.party;
+    }
+
     public void setPoke(int partyPos, int pokeIndex)
     {
-        this.party[partyPos][1] = valueToByte(pokeIndex);
+        writableParty()[partyPos][1] = valueToByte(pokeIndex);
     }
 
     public void setLvl(int partyPos, byte lvl)
     {
-        this.party[partyPos][0] = lvl;
+        writableParty()[partyPos][0] = lvl;
     }
 
     public void setMoves(int partyPos, byte[] newMoves)
     {
         if (trnKind == Kind.WMOVES)
         {
-            System.arraycopy(newMoves, 0, this.party[partyPos], 2, newMoves.length);
+            System.arraycopy(newMoves, 0, writableParty()[partyPos], 2, newMoves.length);
         }
         else if (trnKind == Kind.WMOVESITEMS)
         {
-            System.arraycopy(newMoves, 0, this.party[partyPos], 3, newMoves.length);
+            System.arraycopy(newMoves, 0, writableParty()[partyPos], 3, newMoves.length);
         }
     }
 
@@ -191,14 +221,14 @@ public class Trainer
         {
             for (int i = 0; i < newMoves.size(); i++)
             {
-                this.party[partyPos][2 + i] = newMoves.get(i).getIndex();
+                writableParty()[partyPos][2 + i] = newMoves.get(i).getIndex();
             }
         }
         else if (trnKind == Kind.WMOVESITEMS)
         {
             for (int i = 0; i < newMoves.size(); i++)
             {
-                this.party[partyPos][3 + i] = newMoves.get(i).getIndex();
+                writableParty()[partyPos][3 + i] = newMoves.get(i).getIndex();
             }
         }
     }
@@ -206,6 +236,7 @@ public class Trainer
     public void setParty(byte[][] party)
     {
         this.party = party;
+        partyShared = false;
     }
 
     public void removeCustMoves()
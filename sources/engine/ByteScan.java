@@ -0,0 +1,48 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+class ByteScan
+{
+    // finds terminator bytes eight at a time, with a long per eight bytes (SWAR)
+    // the xor with the repeated terminator turns every matching byte into zero,
+    // and (x - 0x01..01) & ~x & 0x80..80 sets the top bit of zero bytes
+    // bytes above a real zero may be flagged too (by the borrow), never below it,
+    // so the lowest flag is always the first match
+    // whatever is left after the last whole long is scanned one byte at a time
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101_0101_0101_0101L;
+    private static final long HIGHS = 0x8080_8080_8080_8080L;
+
+    static int indexOf(byte[] data, int from, int to, byte term)
+    {
+        // first position of term in data[from, to), or -1
+        long pattern = (term & 0xFFL) * ONES;
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES)
+        {
+            long x = (long) LONGS.get(data, i) ^ pattern;
+            long found = (x - ONES) & ~x & HIGHS;
+
+            if (found != 0)
+            {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+
+        for (; i < to; i++)
+        {
+            if (data[i] == term)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
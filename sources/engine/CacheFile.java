@@ -0,0 +1,259 @@
+package engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+
+class CacheFile
+{
+    // binary cache for data that is slow to parse but only changes along with its inputs
+    // a cache file holds a magic number, the format version, the key it was built for
+    // (a hash of the inputs), the length of the data that follows and its CRC32;
+    // if any of them doesn't match, the cache is ignored and the caller parses the inputs again
+    // the lengths inside the data are checked against what is left of the file as they are read,
+    // a bad one throws IllegalStateException, which callers take as a damaged cache and parse the inputs again
+
+    private static final int MAGIC = 0x50435243; // "PCRC"
+
+    static byte[] hash(File... files) throws IOException
+    {
+        MessageDigest digest = sha256();
+
+        for (File file : files)
+        {
+            try (FileChannel ch = FileChannel.open(file.toPath(), READ))
+            {
+                digest.update(ByteBuffer.allocate(8).putLong(0, ch.size())); // keeps file boundaries apart
+                digest.update(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            }
+        }
+
+        return digest.digest();
+    }
+
+    static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e); // every Java platform has SHA-256
+        }
+    }
+
+    static Reader load(File file, int version, byte[] key) throws IOException
+    {
+        // maps the whole cache file in one go, returns null if there is no usable cache
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+
+        try (FileChannel ch = FileChannel.open(file.toPath(), READ))
+        {
+            buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+
+        try
+        {
+            Reader in = new Reader(buffer);
+
+            if (in.readInt() != MAGIC
+                    || in.readInt() != version
+                    || !Arrays.equals(in.readBytes(), key))
+            {
+                return null;
+            }
+
+            int length = in.readInt();
+            int crc = in.readInt();
+
+            if (length != buffer.remaining() // truncated or padded file
+                    || crc != crc32(buffer.duplicate()))
+            {
+                return null;
+            }
+
+            return in;
+        }
+        catch (BufferUnderflowException | IllegalStateException e)
+        {
+            return null; // not even a complete header
+        }
+    }
+
+    private static int crc32(ByteBuffer data)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    static class Writer
+    {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        void writeInt(int v)
+        {
+            bytes.write(v >>> 24);
+            bytes.write(v >>> 16);
+            bytes.write(v >>> 8);
+            bytes.write(v);
+        }
+
+        void writeByte(byte b)
+        {
+            bytes.write(b);
+        }
+
+        void writeBytes(byte[] b)
+        {
+            writeInt(b.length);
+            bytes.write(b, 0, b.length);
+        }
+
+        void writeBytesArray(byte[][] b)
+        {
+            writeInt(b.length);
+
+            for (byte[] row : b)
+            {
+                writeBytes(row);
+            }
+        }
+
+        void writeInts(int[] v)
+        {
+            writeInt(v.length);
+
+            for (int i : v)
+            {
+                writeInt(i);
+            }
+        }
+
+        void save(File file, int version, byte[] key) throws IOException
+        {
+            // writes header and data to a temporary file and renames it over the old cache,
+            // so a reader never sees a half-written cache
+            Writer header = new Writer();
+            header.writeInt(MAGIC);
+            header.writeInt(version);
+            header.writeBytes(key);
+            header.writeInt(bytes.size());
+            header.writeInt(crc32(ByteBuffer.wrap(bytes.toByteArray())));
+
+            File dir = file.getAbsoluteFile().getParentFile();
+            File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+
+            try
+            {
+                try (FileChannel ch = FileChannel.open(tmp.toPath(), WRITE))
+                {
+                    ByteBuffer[] buffers =
+                    {
+                        ByteBuffer.wrap(header.bytes.toByteArray()), ByteBuffer.wrap(bytes.toByteArray())
+                    };
+
+                    while (buffers[1].hasRemaining())
+                    {
+                        ch.write(buffers);
+                    }
+                }
+
+                try
+                {
+                    Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING);
+                }
+            }
+            finally
+            {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    static class Reader
+    {
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        int readInt()
+        {
+            return buffer.getInt();
+        }
+
+        byte readByte()
+        {
+            return buffer.get();
+        }
+
+        byte[] readBytes()
+        {
+            byte[] b = new byte[readLength(1)];
+            buffer.get(b);
+            return b;
+        }
+
+        byte[][] readBytesArray()
+        {
+            byte[][] b = new byte[readLength(4)][]; // each row takes at least its length
+
+            for (int i = 0; i < b.length; i++)
+            {
+                b[i] = readBytes();
+            }
+
+            return b;
+        }
+
+        int[] readInts()
+        {
+            int[] v = new int[readLength(4)];
+
+            for (int i = 0; i < v.length; i++)
+            {
+                v[i] = buffer.getInt();
+            }
+
+            return v;
+        }
+
+        private int readLength(int elementSize)
+        {
+            // number of elements that follow, checked before anything is allocated for them
+            int n = buffer.getInt();
+
+            if (n < 0 || n > buffer.remaining() / elementSize)
+            {
+                throw new IllegalStateException("Cache length " + n + " runs past the end of the file.");
+            }
+
+            return n;
+        }
+    }
+}
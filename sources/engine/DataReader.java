@@ -2,6 +2,7 @@ package engine;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.ByteBuffer;
@@ -10,6 +11,7 @@ import java.io.IOException;
 import static data.Constants.*;
 import data.PokemonData;
 import data.Sprite;
+import util.IntList;
 
 class DataReader
 {
@@ -17,6 +19,8 @@ class DataReader
     Sprite[][] monSpr = new Sprite[2][]; // sprites [Pokemon, Unown Formes][Index]
     byte[][][] pal; // [Pokemon Index][Regular or Shiny][Palette bytes]
 
+    private static final int CACHE_VERSION = 1; // increase whenever the cache layout changes
+
     DataReader() throws IOException
     {
         // stats & moves data
@@ -28,6 +32,27 @@ class DataReader
         // misc data (icons)
         File fileMisc = new File("pokemon_data\\data_misc");
 
+        File fileSprF = new File("pokemon_data\\sprites_front"); // file for LZ compressed sprites (front)
+        File fileSprB = new File("pokemon_data\\sprites_back"); // file for LZ compressed sprites (back)
+        File fileSprPtr = new File("pokemon_data\\offsets_sprites"); // file with all the offset values to sprites (front/back)
+
+        File fileSprFU = new File("pokemon_data\\sprites_front_unown"); // file for Unown LZ compressed sprites (front)
+        File fileSprBU = new File("pokemon_data\\sprites_back_unown"); // file for Unown LZ compressed sprites (back)
+        File fileSprPtrU = new File("pokemon_data\\offsets_sprites_unown"); // file with all the offset values to sprites (front/back)
+
+        File fileDim = new File("pokemon_data\\dimensions"); // dimension data
+        File filePal = new File("pokemon_data\\palettes"); // palette data
+
+        // the fully parsed data is cached, keyed by the contents of all the files above
+        File fileCache = new File("pokemon_data\\data.cache");
+        byte[] key = CacheFile.hash(fileStats, fileEvoMoves, fileEggMoves, fileNames, fileMisc,
+                fileSprF, fileSprB, fileSprPtr, fileSprFU, fileSprBU, fileSprPtrU, fileDim, filePal);
+
+        if (readCache(fileCache, key))
+        {
+            return;
+        }
+
         try (
                 RandomAccessFile strStats = new RandomAccessFile(fileStats, "r");
                 FileChannel chStats = strStats.getChannel();
@@ -40,21 +65,10 @@ class DataReader
                 RandomAccessFile strMisc = new RandomAccessFile(fileMisc, "r");
                 FileChannel chMisc = strMisc.getChannel();)
         {
-            System.out.println("Reading Pokemon data...");
+            Log.info("Reading Pokemon data...");
             monData = readPokemon(chStats, chEvoMoves, chEggMoves, chNames, chMisc);
         }
 
-        File fileSprF = new File("pokemon_data\\sprites_front"); // file for LZ compressed sprites (front)
-        File fileSprB = new File("pokemon_data\\sprites_back"); // file for LZ compressed sprites (back)
-        File fileSprPtr = new File("pokemon_data\\offsets_sprites"); // file with all the offset values to sprites (front/back)
-
-        File fileSprFU = new File("pokemon_data\\sprites_front_unown"); // file for Unown LZ compressed sprites (front)
-        File fileSprBU = new File("pokemon_data\\sprites_back_unown"); // file for Unown LZ compressed sprites (back)
-        File fileSprPtrU = new File("pokemon_data\\offsets_sprites_unown"); // file with all the offset values to sprites (front/back)
-
-        File fileDim = new File("pokemon_data\\dimensions"); // dimension data
-        File filePal = new File("pokemon_data\\palettes"); // palette data
-
         try (
                 RandomAccessFile strSprF = new RandomAccessFile(fileSprF, "r");
                 FileChannel chF = strSprF.getChannel();
@@ -73,10 +87,140 @@ class DataReader
                 RandomAccessFile strPal = new RandomAccessFile(filePal, "r");
                 FileChannel chPal = strPal.getChannel();)
         {
-            System.out.println("Reading sprite data...");
+            Log.info("Reading sprite data...");
             monSpr = readDataSprites(chF, chB, chPtr, chFU, chBU, chPtrU, chDim);
             pal = readDataPalettes(chPal);
         }
+
+        writeCache(fileCache, key);
+    }
+
+    private boolean readCache(File fileCache, byte[] key) throws IOException
+    {
+        CacheFile.Reader in = CacheFile.load(fileCache, CACHE_VERSION, key);
+
+        if (in == null)
+        {
+            return false;
+        }
+
+        Log.info("Reading cached Pokemon data...");
+
+        try
+        {
+            readCache(in);
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            // the header matched but the data doesn't decode, the files it was built from are still there
+            Log.info("Ignoring damaged Pokemon data cache: " + e);
+            return false;
+        }
+    }
+
+    private void readCache(CacheFile.Reader in)
+    {
+        monData = new PokemonData[in.readInt()];
+
+        for (int i = 0; i < monData.length; i++)
+        {
+            int trueIndex = in.readInt();
+            byte[] base = in.readBytes();
+            byte[] type = in.readBytes();
+            byte[] misc = in.readBytes();
+            byte gfx = in.readByte();
+            byte[] tmhm = in.readBytes();
+            byte[][] evo = in.readBytesArray();
+            int[] evoIndex = in.readInts();
+            byte[][] move = in.readBytesArray();
+
+            monData[i] = new PokemonData(trueIndex, base, type, misc, gfx, tmhm, evo, evoIndex, move);
+            monData[i].setPreEvoIndex(in.readInts());
+            monData[i].setEggMoves(in.readBytes());
+            monData[i].setEggMovesCarry(in.readBytes());
+            monData[i].setName(in.readBytes());
+            monData[i].setIcon(in.readByte());
+        }
+
+        monSpr = new Sprite[in.readInt()][];
+
+        for (int i = 0; i < monSpr.length; i++)
+        {
+            monSpr[i] = new Sprite[in.readInt()];
+
+            for (int j = 0; j < monSpr[i].length; j++)
+            {
+                byte[] front = in.readBytes();
+                byte[] back = in.readBytes();
+                byte dim = in.readByte();
+                monSpr[i][j] = new Sprite(front, back, dim, in.readInts());
+            }
+        }
+
+        pal = new byte[in.readInt()][][];
+
+        for (int i = 0; i < pal.length; i++)
+        {
+            pal[i] = in.readBytesArray();
+        }
+    }
+
+    private void writeCache(File fileCache, byte[] key)
+    {
+        CacheFile.Writer out = new CacheFile.Writer();
+
+        out.writeInt(monData.length);
+
+        for (PokemonData mon : monData)
+        {
+            out.writeInt(mon.getTrueIndex());
+            out.writeBytes(mon.getBaseBytes());
+            out.writeBytes(mon.getTypesByte());
+            out.writeBytes(mon.getMisc());
+            out.writeByte(mon.getGfx());
+            out.writeBytes(mon.getCompatibilityBytes());
+            out.writeBytesArray(mon.getEvos());
+            out.writeInts(mon.getEvoIndex());
+            out.writeBytesArray(mon.getMoves());
+            out.writeInts(mon.getPreEvoIndex());
+            out.writeBytes(mon.getEggMoves());
+            out.writeBytes(mon.getEggMovesCarry());
+            out.writeBytes(mon.getName());
+            out.writeByte(mon.getIcon());
+        }
+
+        out.writeInt(monSpr.length);
+
+        for (Sprite[] group : monSpr)
+        {
+            out.writeInt(group.length);
+
+            for (Sprite s : group)
+            {
+                out.writeBytes(s.getFront());
+                out.writeBytes(s.getBack());
+                out.writeByte(s.getDim());
+                out.writeInts(s.getOffset());
+            }
+        }
+
+        out.writeInt(pal.length);
+
+        for (byte[][] p : pal)
+        {
+            out.writeBytesArray(p);
+        }
+
+        try
+        {
+            out.save(fileCache, CACHE_VERSION, key);
+        }
+        catch (IOException e)
+        {
+            // the data was read fine, it just has to be parsed again next time
+            Log.info("Couldn't write Pokemon data cache: " + e.getMessage());
+        }
     }
 
     private byte[] readFromData(FileChannel ch, int pos, int length) throws IOException
@@ -86,6 +230,21 @@ class DataReader
         return buffer.array();
     }
 
+    private static ByteBuffer readAllData(FileChannel ch) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate((int) ch.size());
+
+        while (buffer.hasRemaining())
+        {
+            if (ch.read(buffer, buffer.position()) < 0)
+            {
+                break; // reached end of file
+            }
+        }
+
+        return buffer;
+    }
+
     private byte readByteFromData(FileChannel ch, int pos) throws IOException
     {
         ByteBuffer buffer = ByteBuffer.allocate(1);
@@ -94,32 +253,29 @@ class DataReader
         return byteHolder[0];
     }
 
-    private int lengthUntilByte(FileChannel ch, int pos, byte term) throws IOException
+    private int lengthUntilByte(byte[] data, int pos, byte term) throws IOException
     {
-        byte byteRead;
-        int n = 0; // keep track number of loop
+        int end = ByteScan.indexOf(data, pos, data.length, term);
 
-        while (true)
+        if (end < 0)
         {
-            byteRead = readByteFromData(ch, pos + n);
-
-            if (byteRead == term) // if a terminating byte
-            {
-                break;
-            }
-
-            n++;
+            throw new IOException(String.format("No terminator 0x%02X after 0x%X.", term & 0xFF, pos));
         }
 
-        return n;
+        return end - pos;
     }
 
     private PokemonData[] readPokemon(FileChannel chStats, FileChannel chEvoMoves, FileChannel chEggMoves, FileChannel chNames, FileChannel chMisc) throws IOException
     {
         PokemonData[] monData = new PokemonData[N_POKEMON_DATA];
 
-        ArrayList<Integer> futureEvos = new ArrayList<>(); // keep track of Pokemon after who have pre-evos
-        ArrayList<Integer> futureEvosIndex = new ArrayList<>(); // store the Pokémon index that evolve into the evos
+        // the lists are read whole and parsed in memory
+        byte[] evoMoves = readAllData(chEvoMoves).array();
+        byte[] eggMoves = readAllData(chEggMoves).array();
+        byte[] names = readAllData(chNames).array();
+
+        IntList futureEvos = new IntList(); // keep track of Pokemon after who have pre-evos
+        IntList futureEvosIndex = new IntList(); // store the Pokémon index that evolve into the evos
 
         int posEvoMoves = 0; // keep track of evomoves position
         int posEggMoves = 0; // keep track of eggmoves position
@@ -172,39 +328,40 @@ class DataReader
             /////////////////////////////////////
             pos = posEvoMoves; // set position to second set
 
-            ArrayList<Byte[]> evoList = new ArrayList<>();
-            ArrayList<Integer> evoIndexList = new ArrayList<>();
+            ArrayList<byte[]> evoList = new ArrayList<>();
+            IntList evoIndexList = new IntList(2);
 
-            if (readByteFromData(chEvoMoves, pos) == (byte) 0x00) // no evolutions
+            if (evoMoves[pos] == (byte) 0x00) // no evolutions
             {
-                Byte[] evoNull = new Byte[0];
+                byte[] evoNull = new byte[0];
                 evoList.add(evoNull);
             }
             else
             {
-                while (readByteFromData(chEvoMoves, pos) != (byte) 0x00)
+                // the 2-byte index of an evolution can hold 0x00, so the list is walked entry by entry
+                while (evoMoves[pos] != (byte) 0x00)
                 {
-                    Byte[] evo;
-                    Integer evoIndex; // declare new evolution's true index
+                    byte[] evo;
+                    int evoIndex; // declare new evolution's true index
 
-                    switch (readByteFromData(chEvoMoves, pos))
+                    switch (evoMoves[pos])
                     {
                         case (byte) 0x01: // by level up
                         case (byte) 0x02: // by item
                         case (byte) 0x03: // by trading
                         case (byte) 0x04: // by happiness
-                            evo = convertByteArray(readFromData(chEvoMoves, pos, 2));
-                            evoIndex = byteArrayToInt(readFromData(chEvoMoves, pos + 2, 2), true);
+                            evo = Arrays.copyOfRange(evoMoves, pos, pos + 2);
+                            evoIndex = byteArrayToInt(Arrays.copyOfRange(evoMoves, pos + 2, pos + 4), true);
                             pos += 2 + 2;
                             break;
 
                         case (byte) 0x05: // by stats
-                            evo = convertByteArray(readFromData(chEvoMoves, pos, 3));
-                            evoIndex = byteArrayToInt(readFromData(chEvoMoves, pos + 3, 2), true);
+                            evo = Arrays.copyOfRange(evoMoves, pos, pos + 3);
+                            evoIndex = byteArrayToInt(Arrays.copyOfRange(evoMoves, pos + 3, pos + 5), true);
                             pos += 3 + 2;
                             break;
                         default:
-                            evo = new Byte[0];
+                            evo = new byte[0];
                             evoIndex = 0xFF;
                             break;
                     }
@@ -226,33 +383,21 @@ class DataReader
                 }
             }
 
-            byte[][] evoArray = new byte[evoList.size()][];
-            int[] evoIndexArray = new int[evoIndexList.size()];
-
-            for (int j = 0; j < evoArray.length; j++)
-            {
-                evoArray[j] = convertByteArray(evoList.get(j));
-                evoIndexArray = convertIntArray(evoIndexList.toArray(new Integer[0]));
-            }
+            byte[][] evoArray = evoList.toArray(new byte[0][]);
+            int[] evoIndexArray = evoIndexList.toArray();
 
             pos++; // position for moves	
 
-            ArrayList<Byte[]> moveList = new ArrayList<>();
-
-            while (readByteFromData(chEvoMoves, pos) != (byte) 0x00) // read moves
-            {
-                Byte[] move = convertByteArray(readFromData(chEvoMoves, pos, 2)); // moves take 2 bytes
-                moveList.add(move); // append that move to the list
-                pos += 2; // adjust position for next move
-            }
-
-            byte[][] moveArray = new byte[moveList.size()][];
+            // neither the level nor the move of an entry can be 0x00, so the list ends at the first one
+            int movesLength = lengthUntilByte(evoMoves, pos, (byte) 0x00);
+            byte[][] moveArray = new byte[movesLength / 2][]; // moves take 2 bytes
 
             for (int j = 0; j < moveArray.length; j++)
             {
-                moveArray[j] = convertByteArray(moveList.get(j));
+                moveArray[j] = Arrays.copyOfRange(evoMoves, pos + 2 * j, pos + 2 * j + 2);
             }
 
+            pos += movesLength;
             posEvoMoves = pos + 1; // setting the next offset
 
             monData[i] = new PokemonData(curIndex, base, type, misc, gfx, tmhm, evoArray, evoIndexArray, moveArray);
@@ -265,8 +410,8 @@ class DataReader
             /////////////////////////////////////
             // names
             /////////////////////////////////////
-            int lenName = lengthUntilByte(chNames, posName, (byte) 0x0D);
-            monData[i].setName(Names.parseTextBytes(readFromData(chNames, posName, lenName)));
+            int lenName = lengthUntilByte(names, posName, (byte) 0x0D);
+            monData[i].setName(Names.parseTextBytes(Arrays.copyOfRange(names, posName, posName + lenName)));
 
             posName += lenName + 2; // two separating bytes
 
@@ -284,27 +429,15 @@ class DataReader
 
             int pos = posEggMoves; // position of this Pokemon's egg moves pointer
 
-            if (readByteFromData(chEggMoves, pos) == (byte) 0xFF)
+            if (eggMoves[pos] == (byte) 0xFF)
             {
                 posEggMoves++;
                 continue; // don't process Pokemon with no egg moves
             }
 
-            ArrayList<Byte> eggMoveList = new ArrayList<>();
-
-            while (readByteFromData(chEggMoves, pos) != (byte) 0xFF) // read moves
-            {
-                Byte move = readByteFromData(chEggMoves, pos); // moves take 1 byte
-                eggMoveList.add(move); // append that move to the list
-                pos++; // adjust position for next move
-            }
-
-            byte[] eggMoveArray = new byte[eggMoveList.size()];
-
-            for (int j = 0; j < eggMoveArray.length; j++)
-            {
-                eggMoveArray[j] = eggMoveList.get(j);
-            }
+            int eggMovesLength = lengthUntilByte(eggMoves, pos, (byte) 0xFF);
+            byte[] eggMoveArray = Arrays.copyOfRange(eggMoves, pos, pos + eggMovesLength); // moves take 1 byte
+            pos += eggMovesLength;
 
             monData[i].setEggMoves(eggMoveArray);
             monData[i].setEggMovesCarry(eggMoveArray);
@@ -341,72 +474,69 @@ class DataReader
             FileChannel chFU, FileChannel chBU, FileChannel chPtrU,
             FileChannel chDim) throws IOException
     {
+        // the picture files are read whole, so measuring and copying each picture happens in memory
+        ByteBuffer dataF = readAllData(chF);
+        ByteBuffer dataB = readAllData(chB);
+        ByteBuffer dataFU = readAllData(chFU);
+        ByteBuffer dataBU = readAllData(chBU);
+
         Sprite[][] sprites = new Sprite[2][];
         sprites[0] = new Sprite[N_POKEMON_DATA];
         sprites[1] = new Sprite[N_UNOWN];
 
-        int ptrOffset = 0;
-        int ptrOffsetU = 0;
+        // the pointers are read first, then all the pictures are measured and copied in parallel
+        // pictures are listed front then back for each Pokemon, then for each Unown forme
+        int nPics = 2 * (N_POKEMON_DATA + N_UNOWN);
+        ByteBuffer[] src = new ByteBuffer[nPics];
+        int[] picPos = new int[nPics];
 
         for (int i = 0; i < N_POKEMON_DATA; i++)
         {
-            byte[] ptr; // pointer to sprite
-            int[] pos = new int[2];
-            int length;
-
             if (i == INDEX_UNOWN - 1)
             {
-                byte dim = readByteFromData(chDim, i);
-                byte[] bNull = new byte[0];
-                int[] posNull =
-                {
-                    0, 0
-                }; // placeholder sprite offset
-                sprites[0][i] = new Sprite(bNull, bNull, dim, posNull);
+                continue; // placeholder sprite, the Unown formes are read below
+            }
 
-                for (int j = 0; j < N_UNOWN; j++)
-                {
-                    ptr = readFromData(chPtrU, 6 * j, 3);
-                    pos[0] = byteArrayToInt(ptr, false);
-                    length = getPicSize(chFU, pos[0]);
+            src[2 * i] = dataF;
+            src[2 * i + 1] = dataB;
+            picPos[2 * i] = byteArrayToInt(readFromData(chPtr, 6 * i, 3), false);
+            picPos[2 * i + 1] = byteArrayToInt(readFromData(chPtr, 6 * i + 3, 3), false);
+        }
 
-                    byte[] front = readFromData(chFU, pos[0], length);
+        for (int j = 0; j < N_UNOWN; j++)
+        {
+            int k = 2 * (N_POKEMON_DATA + j);
+            src[k] = dataFU;
+            src[k + 1] = dataBU;
+            picPos[k] = byteArrayToInt(readFromData(chPtrU, 6 * j, 3), false);
+            picPos[k + 1] = byteArrayToInt(readFromData(chPtrU, 6 * j + 3, 3), false);
+        }
+
+        byte[][] pics = SpriteIngest.read(src, picPos);
+
+        for (int i = 0; i < N_POKEMON_DATA; i++)
+        {
+            byte dim = readByteFromData(chDim, i);
+            int[] posNull =
+            {
+                0, 0
+            }; // placeholder sprite offset
 
-                    ptr = readFromData(chPtrU, 6 * j + 3, 3);
-                    pos[1] = byteArrayToInt(ptr, false);
-                    length = getPicSize(chBU, pos[1]);
+            sprites[0][i] = new Sprite(pics[2 * i], pics[2 * i + 1], dim, posNull);
 
-                    byte[] back = readFromData(chBU, pos[1], length);
+            if (i == INDEX_UNOWN - 1)
+            {
+                for (int j = 0; j < N_UNOWN; j++)
+                {
+                    int k = 2 * (N_POKEMON_DATA + j);
                     int[] posNull1 =
                     {
                         0, 0
                     }; // placeholder sprite offset
 
-                    sprites[1][j] = new Sprite(front, back, dim, posNull1);
+                    sprites[1][j] = new Sprite(pics[k], pics[k + 1], dim, posNull1);
                 }
             }
-            else
-            {
-                ptr = readFromData(chPtr, 6 * i, 3);
-                pos[0] = byteArrayToInt(ptr, false);
-                length = getPicSize(chF, pos[0]);
-
-                byte[] front = readFromData(chF, pos[0], length);
-
-                ptr = readFromData(chPtr, 6 * i + 3, 3);
-                pos[1] = byteArrayToInt(ptr, false);
-                length = getPicSize(chB, pos[1]);
-
-                byte[] back = readFromData(chB, pos[1], length);
-
-                byte dim = readByteFromData(chDim, i);
-                int[] posNull =
-                {
-                    0, 0
-                }; // placeholder sprite offset
-
-                sprites[0][i] = new Sprite(front, back, dim, posNull);
-            }
         }
 
         return sprites;
@@ -425,92 +555,6 @@ class DataReader
         return pal;
     }
 
-    int getPicSize(FileChannel ch, int pos) throws IOException
-    {
-        // gets size of lz compressed pics that starts at position pos in the ROM
-
-        int out = pos;
-        int jump = 0;
-        byte ptrPar; // pointer parameter
-
-        byte b = readByteFromData(ch, out);
-
-        while (b != (byte) 0xFF)
-        {
-            switch (b & 0b111_00000)
-            {
-                case (0b000_00000): // command with n parameters
-                    byte bMask = (byte) 0b0001_1111;
-                    jump = (byteToValue((byte) (b & bMask)) + 1) + 1;
-                    break;
-                case (0b001_00000): // command with one parameter
-                    jump = 1 + 1;
-                    break;
-                case (0b010_00000): // command with two parameters
-                    jump = 2 + 1;
-                    break;
-                case (0b011_00000): // command with no parameters
-                    jump = 0 + 1;
-                    break;
-                case (0b100_00000): // commands with pointer parameters
-                case (0b101_00000):
-                case (0b110_00000):
-                    ptrPar = readByteFromData(ch, out + 1);
-                    if ((ptrPar & 0b1000_0000) == 0b1000_0000) // 7-bit negative offset
-                    {
-                        jump = 1 + 1;
-                    }
-                    else // 15-bit positive offset
-                    {
-                        jump = 2 + 1;
-                    }
-                    break;
-                case (0b111_00000): // lz long
-                    byte[] c = readFromData(ch, out, 2);
-                    switch (c[0] & 0b000_111_00)
-                    {
-                        case (0b000_000_00): // command with n parameters
-                            byte[] b2Mask = new byte[2];
-                            b2Mask[0] = (byte) 0b0000_0011;
-                            b2Mask[1] = (byte) 0b1111_1111;
-                            jump = (byteToValue((byte) (c[0] & b2Mask[0])) * 0x100 + byteToValue((byte) (c[1] & b2Mask[1])) + 1) + 2;
-                            break;
-                        case (0b000_001_00): // command with one parameter
-                            jump = 1 + 2;
-                            break;
-                        case (0b000_010_00): // command with two parameters
-                            jump = 2 + 2;
-                            break;
-                        case (0b000_011_00): // command with no parameters
-                            jump = 0 + 2;
-                            break;
-                        case (0b000_100_00): // commands with pointer parameters
-                        case (0b000_101_00):
-                        case (0b000_110_00):
-                            ptrPar = readByteFromData(ch, out + 2);
-                            if ((ptrPar & 0b1000_0000) == 0b1000_0000) // 7-bit negative offset
-                            {
-                                jump = 1 + 2;
-                            }
-                            else // 15-bit positive offset
-                            {
-                                jump = 2 + 2;
-                            }
-                            break;
-                        default:
-                            break;
-                    }
-                    break;
-                default:
-                    break;
-            }
-
-            out += jump;
-            b = readByteFromData(ch, out);
-        }
-        return (out - pos + 1);
-    }
-
     PokemonData[] getPokemonData()
     {
         return this.monData;
@@ -525,4 +569,35 @@ class DataReader
     {
         return this.pal;
     }
+
+    PokemonData[] copyPokemonData()
+    {
+        // each randomization tiers and edits its own Pokemon, so it gets its own copy-on-write copies
+        PokemonData[] out = new PokemonData[monData.length];
+
+        for (int i = 0; i < monData.length; i++)
+        {
+            out[i] = monData[i].copy();
+        }
+
+        return out;
+    }
+
+    Sprite[][] copySprites()
+    {
+        // sprite offsets get reassigned when packing, so each randomization gets its own copy-on-write copies
+        Sprite[][] out = new Sprite[monSpr.length][];
+
+        for (int i = 0; i < monSpr.length; i++)
+        {
+            out[i] = new Sprite[monSpr[i].length];
+
+            for (int j = 0; j < monSpr[i].length; j++)
+            {
+                out[i][j] = monSpr[i][j].copy();
+            }
+        }
+
+        return out;
+    }
 }
@@ -0,0 +1,122 @@
+package engine;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+class Log
+{
+    // console log written by a background thread, so the randomizer never waits on the console
+    // messages are queued whole and printed in the order they were queued,
+    // so a multi-line message from one run isn't split up by messages from another
+    // anything more than a constant string should be built inside an enabled() check,
+    // so nothing is formatted for a level that is turned off:
+    //     if (Log.enabled(Log.Level.DEBUG))
+    //     {
+    //         Log.debug("Egg moves memory: " + size);
+    //     }
+
+    enum Level
+    {
+        OFF, // nothing at all
+        INFO, // progress and results
+        SPOILER, // what the randomizer chose (teams, movesets, Pokedex)
+        DEBUG; // intermediate data of the randomization
+
+        static Level parse(String name)
+        {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    private static volatile Level level = Level.INFO;
+
+    private static final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(); // messages and flush requests
+
+    static
+    {
+        Thread writer = new Thread(Log::write, "Log");
+        writer.setDaemon(true); // doesn't keep the program alive, call flush() before exiting
+        writer.start();
+    }
+
+    static void setLevel(Level level)
+    {
+        Log.level = level;
+    }
+
+    static boolean enabled(Level l)
+    {
+        return l != Level.OFF && l.ordinal() <= level.ordinal();
+    }
+
+    static void info(String msg)
+    {
+        log(Level.INFO, msg);
+    }
+
+    static void spoiler(String msg)
+    {
+        log(Level.SPOILER, msg);
+    }
+
+    static void debug(String msg)
+    {
+        log(Level.DEBUG, msg);
+    }
+
+    static void log(Level l, String msg)
+    {
+        if (enabled(l))
+        {
+            queue.add(msg);
+        }
+    }
+
+    static void flush() throws InterruptedException
+    {
+        // waits until everything queued so far has been printed
+        CountDownLatch done = new CountDownLatch(1);
+        queue.add(done);
+        done.await();
+    }
+
+    private static void write()
+    {
+        // the stream is only flushed once the queue runs dry, rather than on every line
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+
+        while (true)
+        {
+            Object next;
+
+            try
+            {
+                next = queue.take();
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+
+            if (next instanceof CountDownLatch)
+            {
+                out.flush();
+                ((CountDownLatch) next).countDown();
+            }
+            else
+            {
+                out.println((String) next);
+
+                if (queue.isEmpty())
+                {
+                    out.flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package engine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import static java.lang.Math.*;
+
+class LzCodec
+{
+    // LZ compression used by the Gold/Silver/Crystal pictures
+    // each command byte holds the command in its top 3 bits and the length - 1 in the low 5 bits,
+    // the long form (top bits 111) holds the command in bits 4-2 and a 10-bit length - 1 together with the next byte
+    // the copy commands are followed by an offset into the output: one byte with bit 7 set counts back
+    // from the current position (0x80 is the byte before), otherwise two bytes give the position from the start
+    // 0xFF ends the data
+
+    static final int LITERAL = 0; // n bytes copied from the data
+    static final int ITERATE = 1; // one byte repeated n times
+    static final int ALTERNATE = 2; // two bytes alternated for n bytes
+    static final int ZERO = 3; // n zeros
+    static final int REPEAT = 4; // n bytes copied from the output
+    static final int FLIP = 5; // n bytes copied from the output with their bits reversed
+    static final int REVERSE = 6; // n bytes copied from the output going backwards
+    static final int LONG = 7;
+
+    static final byte END = (byte) 0xFF;
+
+    static final int MAX_SHORT = 0x20; // longest command that fits in one byte
+    static final int MAX_LONG = 0x400;
+    static final int MAX_BACK = 0x80; // furthest a one-byte offset reaches
+    static final int MAX_ABSOLUTE = 0x8000;
+
+    /////////////////////////////////////
+    // reading
+    /////////////////////////////////////
+
+    static int size(byte[] src, int pos)
+    {
+        return size(ByteBuffer.wrap(src), pos);
+    }
+
+    static int size(ByteBuffer src, int pos)
+    {
+        // length of the compressed data starting at pos, including the end byte
+        // only the command bytes are looked at, nothing is decompressed
+        int i = pos;
+
+        while (true)
+        {
+            int b = src.get(i) & 0xFF;
+
+            if (b == 0xFF)
+            {
+                return i - pos + 1;
+            }
+
+            int cmd = b >> 5;
+            int len;
+
+            if (cmd == LONG)
+            {
+                cmd = (b >> 2) & 0b111;
+                len = (((b & 0b11) << 8) | (src.get(i + 1) & 0xFF)) + 1;
+                i += 2;
+            }
+            else
+            {
+                len = (b & 0b1_1111) + 1;
+                i++;
+            }
+
+            switch (cmd)
+            {
+                case LITERAL:
+                    i += len;
+                    break;
+                case ITERATE:
+                    i += 1;
+                    break;
+                case ALTERNATE:
+                    i += 2;
+                    break;
+                case ZERO:
+                    break;
+                case REPEAT:
+                case FLIP:
+                case REVERSE:
+                    i += ((src.get(i) & 0x80) != 0) ? 1 : 2;
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Invalid LZ command 0x%02X at 0x%X.", b, i));
+            }
+        }
+    }
+
+    static byte[] decompress(byte[] src)
+    {
+        return decompress(ByteBuffer.wrap(src), 0);
+    }
+
+    static byte[] decompress(ByteBuffer src, int pos)
+    {
+        byte[] out = new byte[0x400];
+        int n = 0;
+        int i = pos;
+
+        while (true)
+        {
+            int b = src.get(i) & 0xFF;
+
+            if (b == 0xFF)
+            {
+                return Arrays.copyOf(out, n);
+            }
+
+            int cmd = b >> 5;
+            int len;
+
+            if (cmd == LONG)
+            {
+                cmd = (b >> 2) & 0b111;
+                len = (((b & 0b11) << 8) | (src.get(i + 1) & 0xFF)) + 1;
+                i += 2;
+            }
+            else
+            {
+                len = (b & 0b1_1111) + 1;
+                i++;
+            }
+
+            if (n + len > out.length)
+            {
+                out = Arrays.copyOf(out, max(out.length * 2, n + len));
+            }
+
+            switch (cmd)
+            {
+                case LITERAL:
+                    for (int k = 0; k < len; k++)
+                    {
+                        out[n++] = src.get(i++);
+                    }
+                    break;
+                case ITERATE:
+                    Arrays.fill(out, n, n + len, src.get(i++));
+                    n += len;
+                    break;
+                case ALTERNATE:
+                    for (int k = 0; k < len; k++)
+                    {
+                        out[n++] = src.get(i + (k & 1));
+                    }
+                    i += 2;
+                    break;
+                case ZERO:
+                    Arrays.fill(out, n, n + len, (byte) 0);
+                    n += len;
+                    break;
+                case REPEAT:
+                case FLIP:
+                case REVERSE:
+                {
+                    int o = src.get(i) & 0xFF;
+                    int from;
+
+                    if ((o & 0x80) != 0)
+                    {
+                        from = n - (o & 0x7F) - 1;
+                        i += 1;
+                    }
+                    else
+                    {
+                        from = (o << 8) | (src.get(i + 1) & 0xFF);
+                        i += 2;
+                    }
+
+                    if (from < 0 || from >= n || (cmd == REVERSE && from - len + 1 < 0))
+                    {
+                        throw new IllegalArgumentException(String.format("LZ offset 0x%X out of range before 0x%X.", from, i));
+                    }
+
+                    // the output is copied byte by byte, so a copy may overlap what it writes
+                    for (int k = 0; k < len; k++)
+                    {
+                        switch (cmd)
+                        {
+                            case REPEAT:
+                                out[n++] = out[from + k];
+                                break;
+                            case FLIP:
+                                out[n++] = flip(out[from + k]);
+                                break;
+                            default:
+                                out[n++] = out[from - k];
+                                break;
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException(String.format("Invalid LZ command 0x%02X at 0x%X.", b, i));
+            }
+        }
+    }
+
+    private static byte flip(byte b)
+    {
+        return (byte) (Integer.reverse(b) >>> 24);
+    }
+
+    /////////////////////////////////////
+    // writing
+    /////////////////////////////////////
+
+    static byte[] compress(byte[] data)
+    {
+        // optimal parse: best[i] is the fewest bytes that encode data[i, n), worked out from the end back,
+        // trying at each position literals of every length and every command of every length it can reach
+        // a copy only depends on its length and on whether the offset fits in one byte,
+        // so for each copy command only the longest match with a short offset and the longest overall are kept
+        // match lengths come from the ones at the next position: a match of data[i] with data[from] is one longer
+        // than the match of data[i + 1] with data[from + 1] (data[from - 1] for REVERSE)
+        int n = data.length;
+        int[] best = new int[n + 1];
+        int[] choiceCmd = new int[n];
+        int[] choiceLen = new int[n];
+        int[] choiceFrom = new int[n];
+
+        int[][] matches = new int[3][n]; // match lengths at i for every from < i, for REPEAT, FLIP and REVERSE
+        int[][] nextMatches = new int[3][n]; // the same at i + 1
+
+        int run = 0; // length of the run of data[i] starting at i
+        int alt = 0; // length of the alternation of data[i] and data[i + 1] starting at i
+
+        for (int i = n - 1; i >= 0; i--)
+        {
+            int max = min(MAX_LONG, n - i);
+
+            run = (i + 1 < n && data[i + 1] == data[i]) ? run + 1 : 1;
+            alt = (i + 2 < n && data[i + 2] == data[i]) ? alt + 1 : min(2, n - i);
+
+            for (int from = 0; from < i; from++)
+            {
+                matches[0][from] = (data[from] == data[i]) ? 1 + nextMatches[0][from + 1] : 0;
+                matches[1][from] = (flip(data[from]) == data[i]) ? 1 + nextMatches[1][from + 1] : 0;
+                matches[2][from] = (data[from] == data[i]) ? 1 + ((from > 0) ? nextMatches[2][from - 1] : 0) : 0;
+            }
+
+            // literals
+            best[i] = Integer.MAX_VALUE;
+
+            for (int len = 1; len <= max; len++)
+            {
+                consider(best, choiceCmd, choiceLen, choiceFrom, i, LITERAL, len, 0, header(len) + len);
+            }
+
+            // runs
+            int cmd = (data[i] == 0) ? ZERO : ITERATE;
+            for (int len = 1; len <= min(run, max); len++)
+            {
+                consider(best, choiceCmd, choiceLen, choiceFrom, i, cmd, len, 0, header(len) + ((cmd == ZERO) ? 0 : 1));
+            }
+
+            for (int len = 2; len <= min(alt, max); len++)
+            {
+                consider(best, choiceCmd, choiceLen, choiceFrom, i, ALTERNATE, len, 0, header(len) + 2);
+            }
+
+            // copies from the output
+            int[] copyCmds =
+            {
+                REPEAT, FLIP, REVERSE
+            };
+
+            for (int c = 0; c < copyCmds.length; c++)
+            {
+                int nearFrom = -1; // longest match reachable with a one-byte offset
+                int farFrom = -1; // longest match overall
+                int[] m = matches[c];
+
+                for (int from = min(i, MAX_ABSOLUTE) - 1; from >= 0; from--)
+                {
+                    if (m[from] == 0)
+                    {
+                        continue;
+                    }
+
+                    if (i - from <= MAX_BACK && (nearFrom < 0 || m[from] > m[nearFrom]))
+                    {
+                        nearFrom = from;
+                    }
+
+                    if (farFrom < 0 || m[from] > m[farFrom])
+                    {
+                        farFrom = from;
+                    }
+                }
+
+                int nearLen = (nearFrom < 0) ? 0 : min(m[nearFrom], max);
+                int farLen = (farFrom < 0) ? 0 : min(m[farFrom], max);
+
+                for (int len = 1; len <= max(nearLen, farLen); len++)
+                {
+                    if (len <= nearLen)
+                    {
+                        consider(best, choiceCmd, choiceLen, choiceFrom, i, copyCmds[c], len, nearFrom, header(len) + 1);
+                    }
+                    else
+                    {
+                        consider(best, choiceCmd, choiceLen, choiceFrom, i, copyCmds[c], len, farFrom, header(len) + 2);
+                    }
+                }
+            }
+
+            int[][] swap = nextMatches;
+            nextMatches = matches;
+            matches = swap;
+        }
+
+        // follow the choices from the start
+        byte[] out = new byte[best[0] + 1];
+        int o = 0;
+
+        for (int p = 0; p < n; p += choiceLen[p])
+        {
+            int len = choiceLen[p];
+            int from = choiceFrom[p];
+            o = writeHeader(out, o, choiceCmd[p], len);
+
+            switch (choiceCmd[p])
+            {
+                case LITERAL:
+                    System.arraycopy(data, p, out, o, len);
+                    o += len;
+                    break;
+                case ITERATE:
+                    out[o++] = data[p];
+                    break;
+                case ALTERNATE:
+                    out[o++] = data[p];
+                    out[o++] = data[p + 1];
+                    break;
+                case ZERO:
+                    break;
+                default:
+                    if (p - from <= MAX_BACK)
+                    {
+                        out[o++] = (byte) (0x80 | (p - from - 1));
+                    }
+                    else
+                    {
+                        out[o++] = (byte) (from >> 8);
+                        out[o++] = (byte) from;
+                    }
+                    break;
+            }
+        }
+
+        out[o++] = END;
+
+        return out;
+    }
+
+    private static void consider(int[] best, int[] choiceCmd, int[] choiceLen, int[] choiceFrom, int i, int cmd, int len, int from, int cost)
+    {
+        // keeps the command if it beats the best encoding of data[i, n) found so far
+        // ties keep the earlier one, so cheaper-to-decode literals and runs win over copies
+        int total = cost + best[i + len];
+
+        if (total < best[i])
+        {
+            best[i] = total;
+            choiceCmd[i] = cmd;
+            choiceLen[i] = len;
+            choiceFrom[i] = from;
+        }
+    }
+
+    private static int header(int len)
+    {
+        return (len > MAX_SHORT) ? 2 : 1;
+    }
+
+    private static int writeHeader(byte[] out, int o, int cmd, int len)
+    {
+        if (len > MAX_SHORT)
+        {
+            out[o++] = (byte) ((LONG << 5) | (cmd << 2) | ((len - 1) >> 8));
+            out[o++] = (byte) (len - 1);
+        }
+        else
+        {
+            out[o++] = (byte) ((cmd << 5) | (len - 1));
+        }
+
+        return o;
+    }
+}
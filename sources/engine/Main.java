@@ -1,123 +1,139 @@
 package engine;
 
-import static data.Constants.*;
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.channels.FileChannel;
-import java.nio.file.Paths;
-import static java.nio.file.StandardCopyOption.*;
-import java.io.RandomAccessFile;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class Main
 {
-    public static void main(String[] args) throws IOException
+    public static void main(String[] args) throws IOException, InterruptedException
     {
-        if (Boolean.parseBoolean(args[0])) // reset ROM file
+        // usage: <reset> [seed]
+        //        <reset> batch <count> [seed]
+        // the console log level is set with -Dlog=off|info|spoiler|debug (default info)
+        // the ROM is written whole, or as a patch against the source ROM, with -Dout=rom|ips|bps (default rom)
+        Log.setLevel(Log.Level.parse(System.getProperty("log", "info")));
+
+        try
+        {
+            run(args);
+        }
+        finally
         {
-            Files.copy(Paths.get("rom\\source.gbc"), Paths.get("rom\\rom.gbc"), REPLACE_EXISTING);
+            Log.flush();
         }
+    }
 
+    private static void run(String[] args) throws IOException, InterruptedException
+    {
         File file = new File("rom\\rom.gbc");
         File fileSrc = new File("rom\\source.gbc");
         File fileSav = new File("rom\\rom.sav");
+        File fileCache = new File("rom\\rom.cache"); // data parsed from the last base ROM
+
+        // the base images and the Pokemon data are read once,
+        // every randomization works on copies of them which are only written out at the very end
+        // every stage is timed, a JSON summary is written for the setup and for each seed
+        boolean reset = Boolean.parseBoolean(args[0]); // start from the source ROM instead of the last output
+        PatchWriter.Format format = PatchWriter.Format.parse(System.getProperty("out", "rom"));
+        StageMetrics setupMetrics = new StageMetrics();
+
+        setupMetrics.stage("DataReader", true); // sprites are read on the common pool when not cached
+        DataReader dataReader = new DataReader();
+        setupMetrics.stage("RomImage.load");
+        RomImage rom = RomImage.load((reset || format != PatchWriter.Format.ROM) ? fileSrc : file); // patches always apply to the source
+        RomImage sav = RomImage.load(fileSav);
+        Randomizer randomizer = new Randomizer(dataReader, rom, sav, fileCache, setupMetrics);
+
+        if (args.length > 2 && args[1].equals("batch"))
+        {
+            File dir = new File("rom\\batch");
+            int count = Integer.parseInt(args[2]);
+            long seed = (args.length > 3) ? Long.parseLong(args[3]) : RandomStreams.newSeed();
+            generateBatch(randomizer, rom, format, count, seed, dir, setupMetrics);
+            return;
+        }
+
+        setupMetrics.writeJson(new File("rom\\setup.metrics.json"));
+
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : RandomStreams.newSeed();
+        Log.info("Seed: " + seed);
 
-        try (
-                RandomAccessFile stream = new RandomAccessFile(file, "rw");
-                FileChannel ch = stream.getChannel();
-                RandomAccessFile streamSrc = new RandomAccessFile(fileSrc, "r");
-                FileChannel chSrc = streamSrc.getChannel();
-                RandomAccessFile streamSav = new RandomAccessFile(fileSav, "rw");
-                FileChannel chSav = streamSav.getChannel();)
+        Randomizer.Output out = randomizer.generate(seed);
+
+        /////////////////////////////////////
+        // write out images
+        /////////////////////////////////////
+        out.metrics.stage("writeTo");
+        PatchWriter.write(format, rom, out.rom, (format == PatchWriter.Format.ROM) ? file : new File("rom\\rom." + format.extension));
+        out.sav.writeTo(fileSav);
+        out.metrics.finish();
+        out.metrics.writeJson(new File("rom\\rom.metrics.json"));
+    }
+
+    private static void generateBatch(Randomizer randomizer, RomImage source, PatchWriter.Format format, int count, long batchSeed, File dir, StageMetrics setupMetrics) throws IOException, InterruptedException
+    {
+        // generates count ROMs (or patches against source) on one worker per processor
+        // the seeds are drawn from batchSeed, so the same batch can be generated again,
+        // and each output is named after its own seed
+        Log.info("Batch seed: " + batchSeed);
+
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Couldn't create directory " + dir);
+        }
+
+        setupMetrics.writeJson(new File(dir, "setup.metrics.json"));
+
+        SplittableRandom seeds = new SplittableRandom(batchSeed);
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        ArrayList<Future<Long>> results = new ArrayList<>(count);
+
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                long seed = seeds.nextLong();
+
+                results.add(pool.submit(() ->
+                {
+                    String name = Long.toUnsignedString(seed, 16);
+                    Randomizer.Output out = randomizer.generate(seed);
+
+                    out.metrics.stage("writeTo");
+                    PatchWriter.write(format, source, out.rom, new File(dir, name + "." + format.extension));
+                    out.sav.writeTo(new File(dir, name + ".sav"));
+                    out.metrics.finish();
+                    out.metrics.writeJson(new File(dir, name + ".metrics.json"));
+                    return seed;
+                }));
+            }
+
+            for (Future<Long> result : results)
+            {
+                try
+                {
+                    Log.info("Generated seed " + result.get());
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof IOException)
+                    {
+                        throw (IOException) e.getCause();
+                    }
+
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        }
+        finally
         {
-            /////////////////////////////////////
-            // randomizer settings
-            /////////////////////////////////////
-
-            int starterKind = 1; // kinds of starters (0 = totally random, 1 = at least 1 evolution, 2 = 3-stage only)
-            
-            boolean movesWSimilar = true; // move TMs replaced by similar strength
-
-            boolean routeWSimilar = true; // route Pokemon with similar strength Pokemon
-            boolean routeNoLeg = true; // whether to have no legendary in wild or yes
-            boolean routeType = true; // whether to have routes with type-specific Pokemon
-
-            boolean trainerWSimilar = true; // trainer Pokemon with similar strength Pokemon
-            int typeExpert = 2; // typeExpert (0 = no type specialists, 1 = preserve type specialists, 2 = randomize type specialists)
-            boolean persRival = true; // have a Rival team with persistent Pokemon or not
-            boolean trainerNoLeg = true; // whether to have no legendary in Trainer parties or yes
-            boolean extraCust = true; // whether to have customized Trainer Pokemon moves
-
-            /////////////////////////////////////
-            // ROM patching
-            /////////////////////////////////////
-            RomPatcher romPatcher = new RomPatcher(ch);
-
-            romPatcher.updateHeldItemRates();
-            romPatcher.updateTypeEnhanceItems();
-
-            /////////////////////////////////////
-            // read data and randomize Pokedex Pokemon
-            /////////////////////////////////////
-            DataReader dataReader = new DataReader();
-            PokedexRandomizer dexRand = new PokedexRandomizer(dataReader.getPokemonData(), dataReader.getSprites(), dataReader.getPalettes());
-
-            RomReader romReader = new RomReader(ch);
-            RomWriter romWriter = new RomWriter(ch);
-
-            PokemonEditor monEditor = new PokemonEditor(dexRand);
-            MoveEditor moveEditor = new MoveEditor(romReader);
-            RouteEditor routeEditor = new RouteEditor(romReader, monEditor.getAllPokemon());
-            TrainerEditor trainerEditor = new TrainerEditor(romReader, monEditor.getAllPokemon());
-            SpriteEditor spriteEditor = new SpriteEditor(dexRand, romReader);
-
-            moveEditor.updateMoves();
-            moveEditor.randomizeTMs(movesWSimilar);
-            romWriter.replaceAllMoves(moveEditor.getMoves(), moveEditor.getAllLearnable());
-
-            MoveSorter moveSorter = new MoveSorter(moveEditor.getMoves(), moveEditor.getAllLearnable(), moveEditor.getCritAnims());
-
-            //monEditor.randomizeMovesets();
-            //monEditor.randomizeCompatibilities();
-            monEditor.fitEggMoves(moveEditor.getAllLearnableBytes());
-            romWriter.replaceAllPokemon(monEditor.getAllPokemon());
-
-            spriteEditor.packSprites();
-            romWriter.replaceAllSprites(spriteEditor.getAllSprites(), spriteEditor.getAllTrainerSprites(), spriteEditor.getEggSprite(), spriteEditor.getAllPalettes());
-
-            Names names = new Names(monEditor.getAllPokemon(), trainerEditor.getTrainers(), moveEditor.getMoves());
-            PokemonSorter monSorter = new PokemonSorter(monEditor.getAllPokemon(), monEditor.bytesToMon(romReader.readRomStarters()));
-
-            romWriter.randomizeStarters(monSorter, starterKind);
-
-            routeEditor.scaleLevel((float) 1.0);
-            routeEditor.randomizeSlotPokemon(monSorter, routeWSimilar, routeNoLeg, routeType);
-            romWriter.replaceAllRoutePokemon(routeEditor.getRoutes());
-
-            trainerEditor.buffKanto(monSorter, moveSorter);
-            trainerEditor.scaleLevel((float) 1.0);
-            trainerEditor.giveStatExp();
-            trainerEditor.randomizePokemon(monSorter, trainerWSimilar, typeExpert, persRival, trainerNoLeg, extraCust);
-            trainerEditor.kantoForceEvolved(monSorter);
-
-            TeamCustomizer teamCust = new TeamCustomizer(moveEditor.getMoves(), moveSorter, names);
-            trainerEditor.applyMovesets(monEditor.getAllPokemon(), teamCust);
-            romWriter.replaceAllTrainers(trainerEditor.getTrainers());
-
-            /////////////////////////////////////
-            // console log
-            /////////////////////////////////////
-            
-            //dexRand.printPokedex(names);
-            //trainerEditor.printCustTeams(names);
-            //moveSorter.printMoveTiers(names);
-
-            /////////////////////////////////////
-            // manipulate save data
-            /////////////////////////////////////
-            SavePatcher savPatcher = new SavePatcher(chSav);
-            savPatcher.generateTeam(monSorter, teamCust, monEditor.getAllPokemon(), 5, 45);
-            savPatcher.updateChecksums();
+            pool.shutdownNow();
         }
     }
 }
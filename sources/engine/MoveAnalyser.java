@@ -11,6 +11,19 @@ import data.PokemonGame;
 class MoveAnalyser
 {
     protected Move[] moves;
+    protected Masks masks; // built by the MoveSorter once the tiers are set, and shared from it
+
+    protected static class Masks
+    {
+        // move sets for the filters applied to every movepool, computed once per move table
+        final MoveSet physical = new MoveSet();
+        final MoveSet special = new MoveSet();
+        final MoveSet status = new MoveSet();
+        final MoveSet nonSituational = new MoveSet();
+        final MoveSet[] upToTier = new MoveSet[N_MOVE_TIERS]; // moves of tier t or below
+        final MoveSet[] byEffect = new MoveSet[MoveEffect.values().length]; // moves of each effect
+        final long[] tmUpToTier = new long[N_MOVE_TIERS]; // TM/HM/tutor slots holding a move of tier t or below
+    }
 
     protected enum Role
     {
@@ -329,19 +342,78 @@ class MoveAnalyser
         return moveTier2 - moveTier1;
     };
 
+    protected Masks buildMasks(Move[] movesTM)
+    {
+        // the tiers have to be set already
+        Masks out = new Masks();
+
+        for (int t = 0; t < N_MOVE_TIERS; t++)
+        {
+            out.upToTier[t] = new MoveSet();
+        }
+
+        for (MoveEffect eff : MoveEffect.values())
+        {
+            out.byEffect[eff.ordinal()] = new MoveSet();
+        }
+
+        for (Move m : moves)
+        {
+            if (m.getCat() == MOVE_PHYSICAL_CATEGORY && m.getCalcPower() > 0)
+            {
+                out.physical.add(m);
+            }
+            if (m.getCat() == MOVE_SPECIAL_CATEGORY && m.getCalcPower() > 0)
+            {
+                out.special.add(m);
+            }
+            if (m.getCat() == MOVE_OTHER_CATEGORY || m.getCalcPower() == 0)
+            {
+                out.status.add(m);
+            }
+
+            MoveEffect eff = getEffect(m);
+            out.byEffect[eff.ordinal()].add(m);
+
+            if (!eff.situational())
+            {
+                out.nonSituational.add(m);
+            }
+
+            for (int t = max(m.getTier(), 0); t < N_MOVE_TIERS; t++)
+            {
+                out.upToTier[t].add(m);
+            }
+        }
+
+        for (int i = 0; i < movesTM.length; i++)
+        {
+            for (int t = max(movesTM[i].getTier(), 0); t < N_MOVE_TIERS; t++)
+            {
+                out.tmUpToTier[t] |= 1L << i;
+            }
+        }
+
+        return out;
+    }
+
     ArrayList<Move> getLevelUpMoves(PokemonGame mon, int lvl, PokemonGame[] mons)
     {
-        ArrayList<Move> movepool = new ArrayList<>();
+        return addLevelUpMoves(new ArrayList<>(), new MoveSet(), mon, lvl, mons);
+    }
+
+    private ArrayList<Move> addLevelUpMoves(ArrayList<Move> movepool, MoveSet added, PokemonGame mon, int lvl, PokemonGame[] mons)
+    {
+        // the list keeps the order moves were found in, the set only answers whether one was already added
         byte[][] lvlMoves = mon.getMovesUpToLevel(mons, valueToByte(lvl));
 
         for (byte[] lvlMove : lvlMoves)
         {
             for (byte m : lvlMove)
             {
-                int index = byteToValue(m);
-                Move thisMove = moves[index - 1];
+                Move thisMove = moves[byteToValue(m) - 1];
 
-                if (!movepool.contains(thisMove))
+                if (added.addIfAbsent(thisMove))
                 {
                     movepool.add(thisMove);
                 }
@@ -353,25 +425,21 @@ class MoveAnalyser
 
     ArrayList<Move> getMovepool(PokemonGame mon, int lvl, PokemonGame[] mons, Move[] movesTM)
     {
-        ArrayList<Move> movepool = getLevelUpMoves(mon, lvl, mons);
+        // level up moves first, then TM/HM/tutor moves in slot order, then egg moves
+        MoveSet added = new MoveSet();
+        ArrayList<Move> movepool = addLevelUpMoves(new ArrayList<>(), added, mon, lvl, mons);
 
         int maxTier = levelTier(lvl);
+        MoveSet allowed = masks.upToTier[maxTier];
 
-        boolean[] moveComp = mon.getCompatibilities();
+        long comp = mon.getCompatibilities() & masks.tmUpToTier[maxTier]; // compatible slots within the tier
 
-        for (int i = 0; i < movesTM.length; i++) // run through all the TM moves
+        while (comp != 0)
         {
-            if (!moveComp[i]) // if not compatible, skip
-            {
-                continue;
-            }
-
-            if (movesTM[i].getTier() > maxTier)
-            {
-                continue;
-            }
+            int i = Long.numberOfTrailingZeros(comp);
+            comp &= comp - 1;
 
-            if (!movepool.contains(movesTM[i]))
+            if (added.addIfAbsent(movesTM[i]))
             {
                 movepool.add(movesTM[i]);
             }
@@ -381,15 +449,9 @@ class MoveAnalyser
 
         for (byte m : eggMoves)
         {
-            int index = byteToValue(m);
-            Move thisMove = moves[index - 1];
+            Move thisMove = moves[byteToValue(m) - 1];
 
-            if (thisMove.getTier() > maxTier)
-            {
-                continue;
-            }
-
-            if (!movepool.contains(thisMove))
+            if (allowed.contains(thisMove) && added.addIfAbsent(thisMove))
             {
                 movepool.add(thisMove);
             }
@@ -398,67 +460,53 @@ class MoveAnalyser
         return movepool;
     }
 
-    protected ArrayList<Move> getPhysical(ArrayList<Move> movepool)
+    protected static ArrayList<Move> filter(ArrayList<Move> movepool, MoveSet mask)
     {
-        ArrayList<Move> movesPhy = new ArrayList<>();
+        // moves of movepool in mask, in the same order
+        ArrayList<Move> out = new ArrayList<>(movepool.size());
 
         for (Move m : movepool)
         {
-            if (m.getCat() == MOVE_PHYSICAL_CATEGORY && m.getCalcPower() > 0)
+            if (mask.contains(m))
             {
-                movesPhy.add(m);
+                out.add(m);
             }
         }
 
-        return movesPhy;
+        return out;
     }
 
-    protected ArrayList<Move> getSpecial(ArrayList<Move> movepool)
+    protected ArrayList<Move> getPhysical(ArrayList<Move> movepool)
     {
-        ArrayList<Move> movesSpe = new ArrayList<>();
-
-        for (Move m : movepool)
-        {
-            if (m.getCat() == MOVE_SPECIAL_CATEGORY && m.getCalcPower() > 0)
-            {
-                movesSpe.add(m);
-            }
-        }
+        return filter(movepool, masks.physical);
+    }
 
-        return movesSpe;
+    protected ArrayList<Move> getSpecial(ArrayList<Move> movepool)
+    {
+        return filter(movepool, masks.special);
     }
 
     protected ArrayList<Move> getStatus(ArrayList<Move> movepool)
     {
-        ArrayList<Move> movesSta = new ArrayList<>();
-
-        for (Move m : movepool)
-        {
-            if (m.getCat() == MOVE_OTHER_CATEGORY || m.getCalcPower() == 0)
-            {
-                movesSta.add(m);
-            }
-        }
-
-        return movesSta;
+        return filter(movepool, masks.status);
     }
 
     protected boolean hasMoveEffect(ArrayList<Move> movepool, MoveEffect eff)
     {
-        boolean test = false;
+        return hasAny(movepool, masks.byEffect[eff.ordinal()]);
+    }
 
+    protected static boolean hasAny(ArrayList<Move> movepool, MoveSet mask)
+    {
         for (Move m : movepool)
         {
-            MoveEffect curEff = getEffect(m);
-
-            if (curEff == eff)
+            if (mask.contains(m))
             {
-                test = true;
-                break;
+                return true;
             }
         }
 
-        return test;
+        return false;
     }
 
     boolean checkSTAB(PokemonGame mon, Move move)
@@ -482,16 +530,7 @@ class MoveAnalyser
     boolean hasNonSituational(ArrayList<Move> movepool)
     {
         // check if a set of moves have at least one non situational move
-        boolean test = false;
-        for (Move m : movepool)
-        {
-            if (!getEffect(m).situational())
-            {
-                test = true;
-                break;
-            }
-        }
-        return test;
+        return hasAny(movepool, masks.nonSituational);
     }
 
     static int levelTier(int lvl)
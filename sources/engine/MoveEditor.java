@@ -1,25 +1,27 @@
 package engine;
 
 import java.util.ArrayList;
-import java.io.IOException;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
 import data.Move;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 class MoveEditor
 {
     private ArrayList<Move> moves;
     private ArrayList<Move> movesTM = new ArrayList<>(N_TM + N_HM + N_MOVE_TUTOR); // actual Move classes of TM, HM and move tutors
     private byte[] critAnims; // moves with animations linked to higher crit rates
+    private SplittableRandom rand;
 
-    MoveEditor(RomReader romReader) throws IOException
+    MoveEditor(RomSnapshot snapshot, SplittableRandom rand)
     {
-        this.moves = new ArrayList<>(Arrays.asList(romReader.readRomMoves()));
-        this.critAnims = romReader.readRomCritAnimations();
+        this.rand = rand;
+        this.moves = new ArrayList<>(Arrays.asList(snapshot.copyMoves()));
+        this.critAnims = snapshot.getCritAnims();
         
-        byte[] moveTMBytes = romReader.readRomTMs();
+        byte[] moveTMBytes = snapshot.getMoveTMs();
 
         for (byte moveTMByte : moveTMBytes)
         {
@@ -33,7 +35,7 @@ class MoveEditor
         {
             if (byteToValue(move.getBasePower()) > 0)
             {
-                move.setBasePower((byte) (random() * 0xFF));
+                move.setBasePower((byte) rand.nextInt(0xFF));
             }
         }
     }
@@ -0,0 +1,109 @@
+package engine;
+
+import java.util.List;
+
+import data.Move;
+
+class MoveSet
+{
+    // set of moves as a 256-bit bitset, one bit per move index
+    // the operations that combine sets return new ones, so shared masks are never changed
+
+    private final long[] words = new long[4];
+
+    static MoveSet of(List<Move> moves)
+    {
+        MoveSet set = new MoveSet();
+
+        for (Move m : moves)
+        {
+            set.add(m);
+        }
+
+        return set;
+    }
+
+    void add(Move move)
+    {
+        add(move.getTrueIndex());
+    }
+
+    void add(int index)
+    {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    boolean contains(Move move)
+    {
+        return contains(move.getTrueIndex());
+    }
+
+    boolean contains(int index)
+    {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    boolean addIfAbsent(Move move)
+    {
+        // adds move and returns whether it wasn't in the set already
+        int index = move.getTrueIndex();
+        long bit = 1L << index;
+
+        if ((words[index >>> 6] & bit) != 0)
+        {
+            return false;
+        }
+
+        words[index >>> 6] |= bit;
+        return true;
+    }
+
+    MoveSet or(MoveSet other)
+    {
+        MoveSet out = new MoveSet();
+
+        for (int i = 0; i < words.length; i++)
+        {
+            out.words[i] = words[i] | other.words[i];
+        }
+
+        return out;
+    }
+
+    MoveSet and(MoveSet other)
+    {
+        MoveSet out = new MoveSet();
+
+        for (int i = 0; i < words.length; i++)
+        {
+            out.words[i] = words[i] & other.words[i];
+        }
+
+        return out;
+    }
+
+    boolean intersects(MoveSet other)
+    {
+        for (int i = 0; i < words.length; i++)
+        {
+            if ((words[i] & other.words[i]) != 0)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    int size()
+    {
+        int n = 0;
+
+        for (long w : words)
+        {
+            n += Long.bitCount(w);
+        }
+
+        return n;
+    }
+}
@@ -1,6 +1,7 @@
 package engine;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
@@ -23,6 +24,7 @@ class MoveSorter extends MoveAnalyser
         this.critAnims = critAnims;
 
         sortMoves();
+        this.masks = buildMasks(movesTM);
     }
 
     Move[] getAllLearnable()
@@ -241,7 +243,7 @@ class MoveSorter extends MoveAnalyser
         return out;
     }
 
-    private void compareMoves(Move move, ArrayList<Move> moveSet, Type[] monTypes, int[] baseStats)
+    private void compareMoves(Move move, ArrayList<Move> moveSet, Type[] monTypes, int[] baseStats, SplittableRandom rand)
     {
         int movePower; // calculate power taking into account STAB
         boolean replaced = false;
@@ -261,7 +263,7 @@ class MoveSorter extends MoveAnalyser
                 replaced = true;
                 break; // no need looking more
             }
-            else if (movePower <= 1 && move.getTier() == moveSet.get(i).getTier() && random() * 100 < 50) // 50% chance to replace same tier
+            else if (movePower <= 1 && move.getTier() == moveSet.get(i).getTier() && rand.nextBoolean()) // 50% chance to replace same tier
             {
                 moveSet.set(i, move);
                 replaced = true;
@@ -337,7 +339,7 @@ class MoveSorter extends MoveAnalyser
                             && (!(repeatedType(move, moveSet, i))) // if there isn't another move of this type
                             && (movePower > 1)) // and is damaging
                     {
-                        if (random() < 0.5) // 50% of replacing
+                        if (rand.nextBoolean()) // 50% of replacing
                         {
                             //System.out.println(byteToValue(thisSlotMove.getIndex()) + " -> " + byteToValue(move.getIndex()));
                             moveSet.set(i, move);
@@ -400,9 +402,18 @@ class MoveSorter extends MoveAnalyser
 
     public void printMoveTiers(Names names)
     {
+        if (!Log.enabled(Log.Level.DEBUG))
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
         for (Move m : moves)
         {
-            System.out.printf("%-12s: tier = %1d, calcPower = %-3d\n", names.move(m.getIndex()), m.getTier(), m.getCalcPower());
+            sb.append(String.format("%-12s: tier = %1d, calcPower = %-3d\n", names.move(m.getIndex()), m.getTier(), m.getCalcPower()));
         }
+
+        Log.debug(sb.toString());
     }
 }
@@ -0,0 +1,277 @@
+package engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import util.IntList;
+
+class PatchWriter
+{
+    // writes a randomized image as a patch against the ROM it was copied from, instead of the whole image
+    // only the ranges the image marks as dirty are compared with the source, and only the bytes that changed
+    // go in the patch (whole banks are cleared and written again, mostly with what was there)
+    // everything else is taken from the source
+    //     IPS: records of an offset (3 bytes), a size (2 bytes) and the data,
+    //          or a size of 0 followed by a run length (2 bytes) and the byte to repeat
+    //     BPS: commands reading from the source where nothing was written and from the patch where something was,
+    //          followed by the CRC32 of the source, the target and the patch itself
+
+    enum Format
+    {
+        ROM("gbc"), // the whole image
+        IPS("ips"),
+        BPS("bps");
+
+        final String extension;
+
+        private Format(String extension)
+        {
+            this.extension = extension;
+        }
+
+        static Format parse(String name)
+        {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    private static final byte[] IPS_HEADER = "PATCH".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IPS_FOOTER = "EOF".getBytes(StandardCharsets.US_ASCII);
+    private static final int IPS_EOF = 0x454F46; // an offset that reads as the footer
+    private static final int IPS_RECORD_HEADER = 5; // offset and size of a record
+    static final int IPS_MAX_RECORD = 0xFFFF;
+    static final int IPS_MIN_RUN = 16; // shortest run written as a run record, so it pays for splitting the data around it
+
+    private static final byte[] BPS_HEADER = "BPS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BPS_SOURCE_READ = 0;
+    private static final int BPS_TARGET_READ = 1;
+    private static final int BPS_MIN_GAP = 2; // a source read and the next target read take at least a byte each
+
+    static void write(Format format, RomImage source, RomImage target, File file) throws IOException
+    {
+        switch (format)
+        {
+            case IPS:
+                RomImage.writeFile(file, ByteBuffer.wrap(ips(source, target)));
+                break;
+            case BPS:
+                RomImage.writeFile(file, ByteBuffer.wrap(bps(source, target)));
+                break;
+            default:
+                target.writeTo(file);
+                break;
+        }
+    }
+
+    private static IntList changedRanges(RomImage source, RomImage target, int minGap)
+    {
+        // start and end pairs of the stretches of the dirty ranges where target differs from source
+        // unchanged gaps shorter than minGap stay inside a stretch, since they cost less than starting another one
+        // target has to be a copy of source, or of a copy of it, for the dirty ranges to hold all the differences
+        if (source.length() != target.length())
+        {
+            throw new IllegalArgumentException("Source and target images differ in length.");
+        }
+
+        IntList out = new IntList();
+        IntList dirty = target.dirtyRanges();
+
+        for (int r = 0; r < dirty.size(); r += 2)
+        {
+            int start = dirty.get(r);
+            int len = dirty.get(r + 1) - start;
+            byte[] before = source.read(start, len);
+            byte[] after = target.read(start, len);
+            int i = 0;
+
+            while (i < len)
+            {
+                int skip = Arrays.mismatch(before, i, len, after, i, len);
+
+                if (skip < 0)
+                {
+                    break; // the rest of the range is unchanged
+                }
+
+                int from = i + skip;
+                int to = from + 1; // end of the last changed byte
+                int j = to;
+
+                while (j < len && j - to < minGap)
+                {
+                    if (before[j] != after[j])
+                    {
+                        to = j + 1;
+                    }
+
+                    j++;
+                }
+
+                out.add(start + from);
+                out.add(start + to);
+                i = to;
+            }
+        }
+
+        return out;
+    }
+
+    /////////////////////////////////////
+    // IPS
+    /////////////////////////////////////
+
+    static byte[] ips(RomImage source, RomImage target)
+    {
+        if (target.length() > IPS_EOF)
+        {
+            throw new IllegalStateException(String.format("IPS patches can't address images over 0x%X bytes.", IPS_EOF));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IntList ranges = changedRanges(source, target, IPS_RECORD_HEADER);
+
+        out.writeBytes(IPS_HEADER);
+
+        for (int r = 0; r < ranges.size(); r += 2)
+        {
+            int start = ranges.get(r);
+            byte[] data = target.read(start, ranges.get(r + 1) - start);
+            int i = 0;
+
+            while (i < data.length)
+            {
+                int run = runLength(data, i);
+
+                if (run >= IPS_MIN_RUN)
+                {
+                    writeInt(out, start + i, 3);
+                    writeInt(out, 0, 2);
+                    writeInt(out, run, 2);
+                    out.write(data[i]);
+                    i += run;
+                    continue;
+                }
+
+                // plain record up to the next long run
+                int j = i + run;
+
+                while (j < data.length && j - i < IPS_MAX_RECORD && runLength(data, j) < IPS_MIN_RUN)
+                {
+                    j++;
+                }
+
+                j = Math.min(j, i + IPS_MAX_RECORD);
+
+                writeInt(out, start + i, 3);
+                writeInt(out, j - i, 2);
+                out.write(data, i, j - i);
+                i = j;
+            }
+        }
+
+        out.writeBytes(IPS_FOOTER);
+        return out.toByteArray();
+    }
+
+    private static int runLength(byte[] data, int pos)
+    {
+        // number of bytes equal to data[pos] from pos on, up to the longest run record
+        int end = Math.min(data.length, pos + IPS_MAX_RECORD);
+        int i = pos + 1;
+
+        while (i < end && data[i] == data[pos])
+        {
+            i++;
+        }
+
+        return i - pos;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int x, int nBytes)
+    {
+        // big-endian
+        for (int i = nBytes - 1; i >= 0; i--)
+        {
+            out.write(x >>> (8 * i));
+        }
+    }
+
+    /////////////////////////////////////
+    // BPS
+    /////////////////////////////////////
+
+    static byte[] bps(RomImage source, RomImage target)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IntList ranges = changedRanges(source, target, BPS_MIN_GAP);
+        int pos = 0;
+
+        out.writeBytes(BPS_HEADER);
+        writeNumber(out, source.length());
+        writeNumber(out, target.length());
+        writeNumber(out, 0); // no metadata
+
+        for (int r = 0; r < ranges.size(); r += 2)
+        {
+            int start = ranges.get(r);
+            int end = ranges.get(r + 1);
+
+            if (start > pos)
+            {
+                writeNumber(out, ((long) (start - pos - 1) << 2) | BPS_SOURCE_READ);
+            }
+
+            writeNumber(out, ((long) (end - start - 1) << 2) | BPS_TARGET_READ);
+            out.writeBytes(target.read(start, end - start));
+            pos = end;
+        }
+
+        if (pos < target.length())
+        {
+            writeNumber(out, ((long) (target.length() - pos - 1) << 2) | BPS_SOURCE_READ);
+        }
+
+        writeCrc(out, source.crc32());
+        writeCrc(out, target.crc32());
+
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        writeCrc(out, crc.getValue());
+
+        return out.toByteArray();
+    }
+
+    private static void writeNumber(ByteArrayOutputStream out, long n)
+    {
+        // variable length number, 7 bits per byte, the last byte has bit 7 set
+        // each byte but the last takes away one from what follows, so every number has a single encoding
+        while (true)
+        {
+            int x = (int) (n & 0x7F);
+            n >>>= 7;
+
+            if (n == 0)
+            {
+                out.write(0x80 | x);
+                return;
+            }
+
+            out.write(x);
+            n--;
+        }
+    }
+
+    private static void writeCrc(ByteArrayOutputStream out, long crc)
+    {
+        // little-endian
+        for (int i = 0; i < 4; i++)
+        {
+            out.write((int) (crc >>> (8 * i)));
+        }
+    }
+}
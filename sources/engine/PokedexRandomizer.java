@@ -2,6 +2,8 @@ package engine;
 
 import static java.lang.Math.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import static data.Constants.*;
 import data.PokemonData;
@@ -21,14 +23,21 @@ class PokedexRandomizer
     private byte[][][] pal;
 
     private int[] indexLookup;
-    private PokemonSorter<PokemonData> monSorter;
+    private PokemonSorter<PokemonData> monSorter; // shared between runs, only read
+    private SplittableRandom rand;
 
-    PokedexRandomizer(PokemonData[] monData, Sprite[][] spr, byte[][][] palData)
+    private ArrayList<Integer> evoList = new ArrayList<>(); // evolutionary lines in the Pokedex, in order
+    private int[] oldTiers; // [new species index] tier of the species that was in this slot
+    private int[] oldTypeTiers;
+
+    PokedexRandomizer(PokemonSorter<PokemonData> monSorter, PokemonData[] monData, Sprite[][] spr, byte[][][] palData, SplittableRandom rand)
     {
+        // monSorter sorts the whole of monData; it doesn't depend on the seed, so it can be built once
+        this.rand = rand;
         this.monData = monData;
         this.spr = spr;
         this.palData = palData;
-        monSorter = new PokemonSorter<>(monData);
+        this.monSorter = monSorter;
 
         indexLookup = new int[N_POKEMON_DATA + 1];
         for (int i = 0; i < N_POKEMON_DATA + 1; i++)
@@ -44,52 +53,46 @@ class PokedexRandomizer
 
     private void randomize()
     {
-        System.out.println("Filling in Pokedex...");
-
-        ArrayList<Integer> evoList = new ArrayList<>();
+        Log.info("Filling in Pokedex...");
 
         ArrayList<ArrayList<PokemonData>> evoLines = monSorter.getEvoLines();
-        int nEvos = evoLines.size();
-        
-        int nDexEvos = 0; // number of evolution lines in the Pokedex
+        boolean[] usedLines = new boolean[evoLines.size()];
         int nDexMons = 0;
-        
-        ArrayList<Integer> availableLines = new ArrayList<>();
-        
-        for (int i = 0; i < evoLines.size(); i++)
-        {
-            availableLines.add(i);
-        }
 
         // first ensure there are evo-lines with each type
         for (Type t : Type.values())
         {
             if (t == Type.NO_TYPE) continue;
 
-            int randEvoLine = getRandomEvoLineType(t, availableLines, false);
+            int randEvoLine = getRandomEvoLineType(t, usedLines, false);
             evoList.add(randEvoLine);
-            availableLines.remove(new Integer(randEvoLine));
+            usedLines[randEvoLine] = true;
             nDexMons += evoLines.get(randEvoLine).size();
-
-            nDexEvos++;
         }
 
-        // fill the rest of the dex
-        while (nDexMons < N_POKEMON)
+        // fill the rest of the dex, with the remaining lines grouped by their length
+        ArrayList<ArrayList<Integer>> bySize = new ArrayList<>();
+
+        for (int i = 0; i < evoLines.size(); i++)
         {
-            int randEvoLine;
+            int size = evoLines.get(i).size();
 
-            do // only get the ones that don't exceed the number of Pokedex slots
+            while (bySize.size() <= size)
             {
-                randEvoLine = getRandomEvoLine(availableLines);
+                bySize.add(new ArrayList<>());
             }
-            while (evoLines.get(randEvoLine).size() > N_POKEMON - nDexMons);
 
+            if (!usedLines[i])
+            {
+                bySize.get(size).add(i);
+            }
+        }
+
+        while (nDexMons < N_POKEMON)
+        {
+            int randEvoLine = getRandomEvoLine(bySize, N_POKEMON - nDexMons);
             evoList.add(randEvoLine);
-            availableLines.remove(new Integer(randEvoLine));
             nDexMons += evoLines.get(randEvoLine).size();
-
-            nDexEvos++;
         }
 
         int dexCount = 1; // indexLookup starts at 1
@@ -99,42 +102,123 @@ class PokedexRandomizer
         {
             for (int j = 0; j < evoLines.get(evoList.get(i)).size(); j++)
             {
-                dexList.add(evoLines.get(evoList.get(i)).get(j));
-                indexLookup[evoLines.get(evoList.get(i)).get(j).getIntIndex()] = dexCount; // update indexLookup
+                int index = evoLines.get(evoList.get(i)).get(j).getIntIndex();
+                dexList.add(monData[index - 1]); // this run's own copy, the sorter's are shared
+                indexLookup[index] = dexCount; // update indexLookup
                 dexCount++;
             }
         }
     }
 
-    private int getRandomEvoLine(ArrayList<Integer> availableLines)
+    private int getRandomEvoLine(ArrayList<ArrayList<Integer>> bySize, int slots)
+    {
+        // returns a random evolution line with no repeats and removes it from bySize
+        // only lines after which the remaining slots can still be filled exactly are drawn
+        int[] counts = new int[bySize.size()];
+        boolean[] fits = new boolean[bySize.size()];
+        int total = 0;
+
+        for (int size = 1; size < bySize.size(); size++)
+        {
+            counts[size] = bySize.get(size).size();
+        }
+
+        for (int size = 1; size < bySize.size() && size <= slots; size++)
+        {
+            if (counts[size] == 0) continue;
+
+            counts[size]--;
+            fits[size] = canFill(counts, slots - size);
+            counts[size]++;
+
+            if (fits[size])
+            {
+                total += counts[size];
+            }
+        }
+
+        if (total == 0)
+        {
+            throw new IllegalStateException("No evolution lines left to fill the last " + slots + " Pokedex slots");
+        }
+
+        int r = rand.nextInt(total);
+
+        for (int size = 1; ; size++)
+        {
+            if (!fits[size]) continue;
+
+            if (r < counts[size])
+            {
+                ArrayList<Integer> lines = bySize.get(size);
+                int line = lines.get(r);
+                lines.set(r, lines.get(lines.size() - 1)); // order doesn't matter, so fill the gap with the last
+                lines.remove(lines.size() - 1);
+                return line;
+            }
+
+            r -= counts[size];
+        }
+    }
+
+    private static boolean canFill(int[] counts, int slots)
     {
-        // returns a random evolution line with no repeats
-        return availableLines.get((int) floor(random() * availableLines.size()));
+        // whether some of the lines (counts[size] of each size) add up to exactly slots
+        boolean[] reach = new boolean[slots + 1];
+        int[] used = new int[slots + 1]; // lines of the current size used to reach each total
+        reach[0] = true;
+
+        for (int size = 1; size < counts.length; size++)
+        {
+            if (counts[size] == 0) continue;
+
+            Arrays.fill(used, 0);
+
+            for (int v = size; v <= slots; v++)
+            {
+                if (!reach[v] && reach[v - size] && used[v - size] < counts[size])
+                {
+                    reach[v] = true;
+                    used[v] = used[v - size] + 1;
+                }
+            }
+        }
+
+        return reach[slots];
     }
 
-    private int getRandomEvoLineType(Type type, ArrayList<Integer> availableLines, boolean includeLegendaries)
+    private int getRandomEvoLineType(Type type, boolean[] usedLines, boolean includeLegendaries)
     {
         // returns a random evolution line that has given type with no repeats
+        // every allowed Pokemon of the type is as likely to be drawn, so lines with more of them are likelier
         ArrayList<PokemonData> typeArray = monSorter.getPokemonOfType(type);
-        int randEvoLine;
-        PokemonData randMon;
+        ArrayList<PokemonData> candidates = new ArrayList<>();
+
+        for (PokemonData mon : typeArray)
+        {
+            if (usedLines[monSorter.findEvoLineContaining(mon)]
+                    || (mon.isLegendary() && !includeLegendaries)
+                    || (type == Type.NORMAL && mon.isNormalFlying())
+                    || (type == Type.FLYING && mon.isBugFlying()))
+                continue;
+
+            candidates.add(mon);
+        }
 
-        do
+        if (candidates.isEmpty())
         {
-            randMon = typeArray.get((int) floor(random() * typeArray.size()));
-            randEvoLine = monSorter.findEvoLineContaining(randMon);
+            throw new IllegalStateException("No evolution line left with a " + type + " Pokemon");
         }
-        while (!availableLines.contains(randEvoLine)
-                || (randMon.isLegendary() && !includeLegendaries)
-                || (type == Type.NORMAL && randMon.isNormalFlying())
-                || (type == Type.FLYING && randMon.isBugFlying()));
 
-        return randEvoLine;
+        PokemonData randMon = candidates.get(rand.nextInt(candidates.size()));
+        return monSorter.findEvoLineContaining(randMon);
     }
 
     private PokemonGame[] getPokemonArray()
     {
         PokemonGame[] mons = new PokemonGame[dexList.size()];
+        oldTiers = new int[dexList.size() + 1];
+        oldTypeTiers = new int[dexList.size() + 1];
 
         for (int i = 0; i < dexList.size(); i++)
         {
@@ -180,8 +264,8 @@ class PokedexRandomizer
             mons[i] = mon.convertPokemon(i, newEvo, newPreEvo);
 
             // set old tiers to have a coherent comparison in strength in the new Dex
-            mons[i].setOldTier(monData[i].getTier());
-            mons[i].setOldTypeTier(monData[i].getTypeTier());
+            oldTiers[i + 1] = monSorter.getTier(monData[i]);
+            oldTypeTiers[i + 1] = monSorter.getTypeTier(monData[i]);
         }
 
         return mons;
@@ -198,7 +282,7 @@ class PokedexRandomizer
             if (i != INDEX_UNOWN - 1) // if the replacement is Unown, replace with random forme
             {
                 monSpr[0][i] = (dexList.get(i).getIntIndex() == INDEX_UNOWN) 
-                        ? spr[1][(int) floor(random() * spr[1].length)] 
+                        ? spr[1][rand.nextInt(spr[1].length)] 
                         : spr[0][dexList.get(i).getIntIndex() - 1];
             }
             else
@@ -228,6 +312,29 @@ class PokedexRandomizer
         return mons;
     }
 
+    PokemonSorter<PokemonGame> newSorter(PokemonGame[] starters)
+    {
+        // sorter for the new Pokedex, which is filled one whole evolutionary line after another,
+        // so its lines are the chosen lines in the order they were added
+        ArrayList<ArrayList<PokemonData>> evoLines = monSorter.getEvoLines();
+        ArrayList<ArrayList<PokemonGame>> dexLines = new ArrayList<>();
+        int dexCount = 0;
+
+        for (int i = 0; i < evoList.size(); i++)
+        {
+            ArrayList<PokemonGame> dexLine = new ArrayList<>();
+
+            for (int j = 0; j < evoLines.get(evoList.get(i)).size(); j++)
+            {
+                dexLine.add(mons[dexCount++]);
+            }
+
+            dexLines.add(dexLine);
+        }
+
+        return new PokemonSorter<>(mons, starters, dexLines, oldTiers, oldTypeTiers);
+    }
+
     Sprite[][] getAllSprites()
     {
         return monSpr;
@@ -240,9 +347,18 @@ class PokedexRandomizer
 
     void printPokedex(Names names)
     {
+        if (!Log.enabled(Log.Level.SPOILER))
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
         for (int i = 0; i < N_POKEMON; i++)
         {
-            System.out.println(names.pokemon(i));
+            sb.append(names.pokemon(i)).append('\n');
         }
+
+        Log.spoiler(sb.toString());
     }
 }
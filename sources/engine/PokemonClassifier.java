@@ -1,6 +1,7 @@
 package engine;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
@@ -10,135 +11,161 @@ import data.Move;
 class PokemonClassifier extends MoveAnalyser
 {
     MoveSorter moveSorter;
+    private final ConcurrentHashMap<Integer, Roles> cache = new ConcurrentHashMap<>(); // by species and level
+
+    static class Roles
+    {
+        // roles a Pokemon can take at a level, with the probability of choosing each
+        final Role[] roles;
+        final double[] prob;
+
+        Roles(Role[] roles, double[] prob)
+        {
+            this.roles = roles;
+            this.prob = prob;
+        }
+    }
 
     PokemonClassifier(Move[] moves, MoveSorter moveSorter)
     {
         this.moves = moves;
+        this.masks = moveSorter.masks;
         this.moveSorter = moveSorter;
     }
 
-    ArrayList<ArrayList<Role>> classify(PokemonGame[] team, int[] lvls, PokemonGame[] mons)
+    Roles[] classify(PokemonGame[] team, int[] lvls, PokemonGame[] mons)
     {
         // assign roles
-        ArrayList<ArrayList<Role>> roles = new ArrayList<>();
+        Roles[] roles = new Roles[team.length];
 
         for (int i = 0; i < team.length; i++)
         {
-            PokemonGame mon = team[i];
-            int lvl = lvls[i];
+            roles[i] = classify(team[i], lvls[i], mons);
+        }
 
-            ArrayList<Move> movepool = getMovepool(mon, lvl, mons, moveSorter.getAllLearnable());
-            ArrayList<Move> movesPhy = getPhysical(movepool);
-            ArrayList<Move> movesSpe = getSpecial(movepool);
-            ArrayList<Move> movesSta = getStatus(movepool);
+        return roles;
+    }
 
-            movesPhy.sort(MovePowerCmp);
-            movesSpe.sort(MovePowerCmp);
+    Roles classify(PokemonGame mon, int lvl, PokemonGame[] mons)
+    {
+        // the roles only depend on the species, the level and the move data, which don't change for a classifier,
+        // so they are worked out once per species and level and shared from then on
+        // the key has the level itself and not its tier, since the level up moves in the movepool go by the level
+        return cache.computeIfAbsent(mon.getTrueIndex() * 0x100 + lvl, k -> newRoles(mon, lvl, mons));
+    }
+
+    private Roles newRoles(PokemonGame mon, int lvl, PokemonGame[] mons)
+    {
+        ArrayList<Move> movepool = getMovepool(mon, lvl, mons, moveSorter.getAllLearnable());
+        ArrayList<Move> movesPhy = getPhysical(movepool);
+        ArrayList<Move> movesSpe = getSpecial(movepool);
+        ArrayList<Move> movesSta = getStatus(movepool);
 
-            ArrayList<Role> curRoles = new ArrayList<>();
+        movesPhy.sort(MovePowerCmp);
+        movesSpe.sort(MovePowerCmp);
 
-            if (movepool.size() < 5) // no choice to be had for movesets anyway
+        ArrayList<Role> curRoles = new ArrayList<>();
+
+        if (movepool.size() < 5) // no choice to be had for movesets anyway
+        {
+            curRoles.add(Role.DEFAULT);
+        }
+        else
+        {
+            if (isPhysicalOffense(mon, movesPhy, levelTier(lvl)))
             {
-                curRoles.add(Role.DEFAULT);
+                curRoles.add(Role.PHYOFF);
             }
-            else
+            if (isSpecialOffense(mon, movesSpe, levelTier(lvl)))
+            {
+                curRoles.add(Role.SPEOFF);
+            }
+            if (isMixed(mon, curRoles))
+            {
+                curRoles.add(Role.MIXED);
+            }
+            if (isPhysicalSweeper(mon, movesPhy, levelTier(lvl)))
+            {
+                curRoles.add(Role.PHYSWEEPER);
+            }
+            if (isSpecialSweeper(mon, movesSpe, levelTier(lvl)))
+            {
+                curRoles.add(Role.SPESWEEPER);
+            }
+            if (isPhysicalTank(mon, movesPhy, levelTier(lvl)))
+            {
+                curRoles.add(Role.PHYTANK);
+            }
+            if (isSpecialTank(mon, movesSpe, levelTier(lvl)))
+            {
+                curRoles.add(Role.SPETANK);
+            }
+            if (isSupport(mon, movesSta))
+            {
+                curRoles.add(Role.SUPPORT);
+            }
+            if (isStaller(mon, movesSta))
+            {
+                curRoles.add(Role.STALLER);
+            }
+            if (isSleepTalker(mon, movesSta, curRoles))
+            {
+                curRoles.add(Role.SLEEP_TALKER);
+            }
+            if (isDreamEater(mon, movepool, curRoles))
+            {
+                curRoles.add(Role.DREAM_EATER);
+            }
+            if (isCurser(mon, movesSta, curRoles))
+            {
+                curRoles.add(Role.CURSER);
+            }
+            if (isFlailer(movepool, curRoles))
+            {
+                curRoles.add(Role.FLAILER);
+            }
+            if (isBellyDrummer(movepool, curRoles))
             {
-                if (isPhysicalOffense(mon, movesPhy, levelTier(lvl)))
-                {
-                    curRoles.add(Role.PHYOFF);
-                }
-                if (isSpecialOffense(mon, movesSpe, levelTier(lvl)))
-                {
-                    curRoles.add(Role.SPEOFF);
-                }
-                if (isMixed(mon, curRoles))
-                {
-                    curRoles.add(Role.MIXED);
-                }
-                if (isPhysicalSweeper(mon, movesPhy, levelTier(lvl)))
-                {
-                    curRoles.add(Role.PHYSWEEPER);
-                }
-                if (isSpecialSweeper(mon, movesSpe, levelTier(lvl)))
-                {
-                    curRoles.add(Role.SPESWEEPER);
-                }
-                if (isPhysicalTank(mon, movesPhy, levelTier(lvl)))
-                {
-                    curRoles.add(Role.PHYTANK);
-                }
-                if (isSpecialTank(mon, movesSpe, levelTier(lvl)))
-                {
-                    curRoles.add(Role.SPETANK);
-                }
-                if (isSupport(mon, movesSta))
-                {
-                    curRoles.add(Role.SUPPORT);
-                }
-                if (isStaller(mon, movesSta))
-                {
-                    curRoles.add(Role.STALLER);
-                }
-                if (isSleepTalker(mon, movesSta, curRoles))
-                {
-                    curRoles.add(Role.SLEEP_TALKER);
-                }
-                if (isDreamEater(mon, movepool, curRoles))
-                {
-                    curRoles.add(Role.DREAM_EATER);
-                }
-                if (isCurser(mon, movesSta, curRoles))
-                {
-                    curRoles.add(Role.CURSER);
-                }
-                if (isFlailer(movepool, curRoles))
-                {
-                    curRoles.add(Role.FLAILER);
-                }
-                if (isBellyDrummer(movepool, curRoles))
-                {
-                    curRoles.add(Role.BELLY_DRUMMER);
-                }
-                if (isPerishTrapper(movepool))
-                {
-                    curRoles.add(Role.PERISH_TRAPPER);
-                }
-
-                if (curRoles.isEmpty()) // if no roles applicable
-                {
-                    curRoles.add(Role.DEFAULT);
-                }
+                curRoles.add(Role.BELLY_DRUMMER);
+            }
+            if (isPerishTrapper(movepool))
+            {
+                curRoles.add(Role.PERISH_TRAPPER);
             }
 
-            for (int j = curRoles.size() - 1; j >= 0; j--)
+            if (curRoles.isEmpty()) // if no roles applicable
             {
-                switch (curRoles.get(j))
-                {
-                    case PHYOFF:
-                        if (curRoles.contains(Role.PHYSWEEPER)
-                                || curRoles.contains(Role.PHYTANK)
-                                || curRoles.contains(Role.SLEEP_TALKER)
-                                || curRoles.contains(Role.FLAILER))
-                        {
-                            curRoles.remove(j);
-                        }
-                        break;
-                    case SPEOFF:
-                        if (curRoles.contains(Role.SPESWEEPER)
-                                || curRoles.contains(Role.SPETANK)
-                                || curRoles.contains(Role.SLEEP_TALKER)
-                                || curRoles.contains(Role.DREAM_EATER))
-                        {
-                            curRoles.remove(j);
-                        }
-                        break;
-                }
+                curRoles.add(Role.DEFAULT);
             }
+        }
 
-            roles.add(curRoles);
+        for (int j = curRoles.size() - 1; j >= 0; j--)
+        {
+            switch (curRoles.get(j))
+            {
+                case PHYOFF:
+                    if (curRoles.contains(Role.PHYSWEEPER)
+                            || curRoles.contains(Role.PHYTANK)
+                            || curRoles.contains(Role.SLEEP_TALKER)
+                            || curRoles.contains(Role.FLAILER))
+                    {
+                        curRoles.remove(j);
+                    }
+                    break;
+                case SPEOFF:
+                    if (curRoles.contains(Role.SPESWEEPER)
+                            || curRoles.contains(Role.SPETANK)
+                            || curRoles.contains(Role.SLEEP_TALKER)
+                            || curRoles.contains(Role.DREAM_EATER))
+                    {
+                        curRoles.remove(j);
+                    }
+                    break;
+            }
         }
 
-        return roles;
+        Role[] roles = curRoles.toArray(new Role[0]);
+        return new Roles(roles, calculateProbabilities(mon, roles));
     }
 
     private boolean isPhysicalOffense(PokemonGame mon, ArrayList<Move> movesPhy, int maxTier)
@@ -454,4 +481,100 @@ class PokemonClassifier extends MoveAnalyser
         Type[] types = mon.getTypes();
         return (types[0] == Type.GHOST || types[1] == Type.GHOST);
     }
+
+    private double[] calculateProbabilities(PokemonGame mon, Role[] roles)
+    {
+        // calculate the weighted probabilities of getting each role according to Pokemon's attributes
+        double[] prob = new double[roles.length];
+        double totalPoints = 0;
+
+        int hp = mon.getHP();
+        int atk = mon.getAtk();
+        int satk = mon.getSAtk();
+        int def = mon.getDef();
+        int sdef = mon.getSDef();
+        int spd = mon.getSpd();
+
+        int statAvrg = mon.getBST() / 6;
+
+        for (int i = 0; i < roles.length; i++)
+        {
+            double calc = 0;
+
+            switch (roles[i])
+            {
+                case PHYOFF:
+                    calc += (atk - statAvrg) / (double) 1;
+                    break;
+                case SPEOFF:
+                    calc += (satk - statAvrg) / (double) 1;
+                    break;
+                case MIXED:
+                    calc += (atk - statAvrg) / (double) 2;
+                    calc += (satk - statAvrg) / (double) 2;
+                    break;
+                case PHYSWEEPER:
+                    calc += (atk - statAvrg) / (double) 2;
+                    calc += (spd - statAvrg) / (double) 2;
+                    break;
+                case SPESWEEPER:
+                    calc += (satk - statAvrg) / (double) 2;
+                    calc += (spd - statAvrg) / (double) 2;
+                    break;
+                case PHYTANK:
+                    calc += (atk - statAvrg) / (double) 3;
+                    calc += (def - statAvrg) / (double) 3;
+                    calc += (sdef - statAvrg) / (double) 3;
+                    break;
+                case SPETANK:
+                    calc += (satk - statAvrg) / (double) 3;
+                    calc += (def - statAvrg) / (double) 3;
+                    calc += (sdef - statAvrg) / (double) 3;
+                    break;
+                case SUPPORT:
+                case STALLER:
+                    calc += (hp - statAvrg) / (double) 3;
+                    calc += (def - statAvrg) / (double) 3;
+                    calc += (sdef - statAvrg) / (double) 3;
+                    break;
+                case SLEEP_TALKER:
+                    calc += (hp - statAvrg) / (double) 2;
+                    calc += max((atk - statAvrg), (satk - statAvrg)) / (double) 2;
+                    break;
+                case DREAM_EATER:
+                    calc += (satk - statAvrg) / (double) 1;
+                    break;
+                case CURSER:
+                    calc += (atk - statAvrg) / (double) 3;
+                    calc += (sdef - statAvrg) / (double) 3;
+                    calc += -(spd - statAvrg) / (double) 3;
+                    break;
+                case FLAILER:
+                    calc += (atk - statAvrg) / (double) 3;
+                    calc += (spd - statAvrg) / (double) 3;
+                    calc += -(hp - statAvrg) / (double) 3;
+                    break;
+                case BELLY_DRUMMER:
+                    calc += (hp - statAvrg) / (double) 1;
+                    break;
+                case PERISH_TRAPPER:
+                    calc += (spd - statAvrg) / (double) 1;
+                    break;
+                default:
+                    calc = 1;
+            }
+
+            calc = max(1, calc);
+
+            prob[i] = calc; // points for now
+            totalPoints += calc;
+        }
+
+        for (int i = 0; i < roles.length; i++)
+        {
+            prob[i] /= totalPoints;
+        }
+
+        return prob;
+    }
 }
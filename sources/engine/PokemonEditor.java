@@ -1,20 +1,23 @@
 package engine;
 
-import java.util.ArrayList;
+import java.util.SplittableRandom;
 import java.io.IOException;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
-import data.Pokemon;
 import data.PokemonGame;
+import util.ByteList;
+import util.IdSet;
 
 class PokemonEditor
 {
     private PokemonGame[] mons;
+    private SplittableRandom rand;
 
-    PokemonEditor(RomReader romReader) throws IOException
+    PokemonEditor(RomReader romReader, SplittableRandom rand) throws IOException
     {
         this.mons = romReader.readRomPokemon();
+        this.rand = rand;
 
         for (int i = 0; i < mons.length; i++)
         {
@@ -22,9 +25,10 @@ class PokemonEditor
         }
     }
 
-    PokemonEditor(PokedexRandomizer dexRand)
+    PokemonEditor(PokedexRandomizer dexRand, SplittableRandom rand)
     {
         this.mons = dexRand.getAllPokemon();
+        this.rand = rand;
     }
 
     void randomizeMovesets()
@@ -37,7 +41,7 @@ class PokemonEditor
             {
                 byte[] moveRand =
                 {
-                    move[j][0], (byte) (random() * N_MOVES + 1)
+                    move[j][0], (byte) (rand.nextInt(N_MOVES) + 1)
                 };
                 mons[i].setMove(j, moveRand);
             }
@@ -50,7 +54,7 @@ class PokemonEditor
         {
             for (int j = 0; j < N_TM + N_HM + N_MOVE_TUTOR; j++)
             {
-                boolean randComp = (random() * 100 < 50);
+                boolean randComp = rand.nextBoolean();
                 mons[i].setCompatibility(j, randComp);
             }
         }
@@ -61,6 +65,9 @@ class PokemonEditor
         // egg moves may extend over its bank
         // so we have to shorten the data
         // firstly we remove TM/HM moves since they are redundant
+        ByteList eggMovesList = new ByteList(); // reused for every Pokemon
+        IdSet learnMovesSet = IdSet.ofUnsigned(learnMoves);
+
         for (PokemonGame mon : mons)
         {
             byte[] eggMoves = mon.getEggMoves();
@@ -68,19 +75,10 @@ class PokemonEditor
             {
                 continue; // skip Pokemon with no egg moves
             }
-            ArrayList<Byte> eggMovesList = new ArrayList<>(eggMoves.length);
-            for (byte eggMove : eggMoves)
-            {
-                eggMovesList.add(eggMove);
-            }
-            ArrayList<Byte> learnMovesList = new ArrayList<>(learnMoves.length);
-            for (byte learnMove : learnMoves)
-            {
-                learnMovesList.add(learnMove);
-            }
-            eggMovesList.removeAll(learnMovesList); // remove from egg moves the learnable moves
-            eggMoves = convertByteArray(eggMovesList.toArray(new Byte[0]));
-            mon.setEggMoves(eggMoves);
+            eggMovesList.clear();
+            eggMovesList.add(eggMoves);
+            eggMovesList.removeAll(learnMovesSet); // remove from egg moves the learnable moves
+            mon.setEggMoves(eggMovesList.toArray());
         }
 
         int size = getEggMoveSize();
@@ -97,33 +95,20 @@ class PokemonEditor
                 continue; // skip Pokemon with no egg moves
             }
 
-            ArrayList<Byte> eggMovesList = new ArrayList<>(eggMoves.length);
-
-            for (byte eggMove : eggMoves)
-            {
-                eggMovesList.add(eggMove);
-            }
+            eggMovesList.clear();
+            eggMovesList.add(eggMoves);
 
             byte[][] levelUpMoves = mons[count].getMoves();
-            byte[] levelMoves = new byte[levelUpMoves.length];
+            IdSet levelMovesSet = new IdSet(0x100);
 
-            for (int i = 0; i < levelUpMoves.length; i++)
+            for (byte[] levelUpMove : levelUpMoves)
             {
-                levelMoves[i] = levelUpMoves[i][1];
+                levelMovesSet.add(byteToValue(levelUpMove[1]));
             }
 
-            ArrayList<Byte> levelMovesList = new ArrayList<>(levelMoves.length);
+            eggMovesList.removeAll(levelMovesSet); // remove from egg moves the level moves
 
-            for (byte levelMove : levelMoves)
-            {
-                levelMovesList.add(levelMove);
-            }
-
-            eggMovesList.removeAll(levelMovesList); // remove from egg moves the level moves
-
-            eggMoves = convertByteArray(eggMovesList.toArray(new Byte[0]));
-
-            mons[count].setEggMoves(eggMoves);
+            mons[count].setEggMoves(eggMovesList.toArray());
 
             size = getEggMoveSize();
             count++;
@@ -132,29 +117,26 @@ class PokemonEditor
         // to be sure it doesn't leak to the next bank, delete random moves
         while ((size > SIZE_EGG_MOVES_MEM))
         {
-            int randIndex = (int) floor(random() * mons.length);
+            int randIndex = rand.nextInt(mons.length);
             byte[] eggMoves = mons[randIndex].getEggMoves();
 
             if (eggMoves.length == 0) continue; // skip Pokemon with no egg moves
 
-            ArrayList<Byte> eggMovesList = new ArrayList<>(eggMoves.length);
+            eggMovesList.clear();
+            eggMovesList.add(eggMoves);
 
-            for (byte eggMove : eggMoves)
-            {
-                eggMovesList.add(eggMove);
-            }
+            int randEntry = rand.nextInt(eggMovesList.size());
+            eggMovesList.removeAt(randEntry); // remove from egg moves the level moves
 
-            int randEntry = (int) floor(random() * eggMovesList.size());
-            eggMovesList.remove(randEntry); // remove from egg moves the level moves
-
-            eggMoves = convertByteArray(eggMovesList.toArray(new Byte[0]));
-
-            mons[randIndex].setEggMoves(eggMoves);
+            mons[randIndex].setEggMoves(eggMovesList.toArray());
 
             size = getEggMoveSize();
         }
 
-        System.out.println("Egg moves memory: " + size + "/" + SIZE_EGG_MOVES_MEM);
+        if (Log.enabled(Log.Level.DEBUG))
+        {
+            Log.debug("Egg moves memory: " + size + "/" + SIZE_EGG_MOVES_MEM);
+        }
     }
 
     private int getEggMoveSize()
@@ -183,14 +165,14 @@ class PokemonEditor
         return mons;
     }
     
-    public Pokemon byteToMon(byte x)
+    public PokemonGame byteToMon(byte x)
     {
         return mons[byteToValue(x) - 1];
     }
     
-    public Pokemon[] bytesToMon(byte[] a)
+    public PokemonGame[] bytesToMon(byte[] a)
     {
-        Pokemon[] out = new Pokemon[a.length];
+        PokemonGame[] out = new PokemonGame[a.length];
         
         for (int i = 0; i < a.length; i++)
             out[i] = byteToMon(a[i]);
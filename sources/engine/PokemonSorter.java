@@ -3,6 +3,7 @@ package engine;
 import java.util.ArrayList;
 import static java.lang.Math.*;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import static data.Constants.*;
 import data.Pokemon;
@@ -19,11 +20,34 @@ class PokemonSorter<T extends Pokemon>
     private PokemonTierList[] tierListType = new PokemonTierList[N_TYPES]; // [type][tier][position]
 
     private ArrayList<ArrayList<T>> byEvoLines = new ArrayList<>(); // lists all the evolutionary lines [number of evo line][list of species in order of evolution]
+    private int[] evoLineOf; // [species index] evolutionary line containing the species
+    private int[] evoLinePos; // [species index] its position in that line
+    private int[][][] evoBranches; // [evo line][position] positions where each branch starts, null if no branch there
     private ArrayList<ArrayList<T>> starterCand = new ArrayList<>(); // candidates for starters (below a BST threshold and able to evolve)
     private ArrayList<ArrayList<T>> starterCand3Stages = new ArrayList<>(); // candidates for starters (3-stage evolutions)
 
+    // tiers are kept here by species index instead of in the T themselves,
+    // so a sorter never writes to the T it sorts and can be shared between runs
+    // (apart from getRandomStarters, nothing changes a sorter once it's built)
+    private int[] tiers;
+    private int[] typeTiers; // tier among the T of the same type
+    private int[] oldTiers; // tier of the T that was in this slot before randomizing, to compare strengths
+    private int[] oldTypeTiers;
+
     PokemonSorter(T[] mons)
     {
+        this(mons, null, null, null, null);
+    }
+
+    PokemonSorter(T[] mons, T[] startersArray)
+    {
+        this(mons, startersArray, null, null, null);
+    }
+
+    PokemonSorter(T[] mons, T[] startersArray, ArrayList<ArrayList<T>> evoLines, int[] oldTiers, int[] oldTypeTiers)
+    {
+        // evoLines and the old tiers can be passed in when they are already known,
+        // otherwise the lines are worked out from the evolutions and the old tiers are the tiers themselves
         this.mons = mons;
         fillTypeList();
         
@@ -33,43 +57,60 @@ class PokemonSorter<T extends Pokemon>
             tierListType[i] = new PokemonTierList<>(byType.get(i), BOT_BST, TOP_BST, N_TYPE_TIERS);
         
         setTiers();
+        this.oldTiers = (oldTiers != null) ? oldTiers : tiers;
+        this.oldTypeTiers = (oldTypeTiers != null) ? oldTypeTiers : typeTiers;
         
-        sortPokemon();
-    }
-
-    PokemonSorter(T[] mons, T[] startersArray)
-    {
-        this(mons);
-        this.starters = new ArrayList<>(Arrays.asList(startersArray));
+        if (evoLines != null)
+        {
+            for (ArrayList<T> evoLine : evoLines)
+                addEvoLine(evoLine);
+            
+            indexEvoLines();
+        }
+        else
+        {
+            sortPokemon();
+        }
+        
+        if (startersArray != null)
+            this.starters = new ArrayList<>(Arrays.asList(startersArray));
     }
 
     PokemonSorter(T[] mons, T[] starters, Names names)
     {
         this(mons, starters);
 
+        if (!Log.enabled(Log.Level.DEBUG))
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
         for (int i = 0; i < byEvoLines.size(); i++)
         {
-            System.out.println("Evo " + i);
+            sb.append("Evo ").append(i).append('\n');
             for (int j = 0; j < byEvoLines.get(i).size(); j++)
             {
-                System.out.print(names.pokemon(byEvoLines.get(i).get(j).getIntIndex()) + " ");
+                sb.append(names.pokemon(byEvoLines.get(i).get(j).getIntIndex())).append(' ');
             }
-            System.out.println();
+            sb.append('\n');
         }
+
+        Log.debug(sb.toString());
     }
     
     private void setTiers()
     {
+        tiers = new int[mons.length + 1];
+        typeTiers = new int[mons.length + 1];
+        
         for (int tier = 0; tier < N_TIERS; tier++)
         {
             ArrayList<T> curTierList = tierList.getTier(tier);
             for (T mon : curTierList)
             {
-                mon.setTier(tier);
-                if (mon.getOldTier() < 0)
-                {
-                    mon.setOldTier(tier); // only change if it hasn't been set
-                }
+                tiers[mon.getIntIndex()] = tier;
             }
         }
         
@@ -80,11 +121,7 @@ class PokemonSorter<T extends Pokemon>
                 ArrayList<T> curTierList = curTierListType.getTier(tier);
                 for (T mon : curTierList)
                 {
-                    mon.setTypeTier(tier);
-                    if (mon.getOldTypeTier() < 0)
-                    {
-                        mon.setOldTypeTier(tier); // only change if it hasn't been set
-                    }
+                    typeTiers[mon.getIntIndex()] = tier;
                 }
             }
         }
@@ -92,18 +129,17 @@ class PokemonSorter<T extends Pokemon>
 
     private void sortPokemon()
     {
-        ArrayList<Integer> evoChecked = new ArrayList<>(); // checked T for evolutions
+        boolean[] evoChecked = new boolean[mons.length + 1]; // checked T for evolutions, by species index
 
         for (int i = 0; i < mons.length; i++)
         {
             // concerning evo sorting
 
-            if (!evoChecked.contains(mons[i].getIntIndex())) // if this T hasn't been processed yet
+            if (!evoChecked[mons[i].getIntIndex()]) // if this T hasn't been processed yet
             {
                 // start a new array for this line				
                 ArrayList<T> thisEvoLine = new ArrayList<>();
                 int startIndex = i; // assume that this is the start in the evo line
-                boolean is3Stage = false; // assume it's not 3-stage evolution
 
                 // may have up to two pre-evolutions, so get to the bottom of the chain
                 if (mons[i].hasPre()) // if this T has a pre-evolution
@@ -124,18 +160,18 @@ class PokemonSorter<T extends Pokemon>
                 }
 
                 thisEvoLine.add(mons[startIndex]); // add the starting T
-                evoChecked.add(mons[startIndex].getIntIndex());
+                evoChecked[mons[startIndex].getIntIndex()] = true;
 
                 if (mons[startIndex].hasEvos()) // explore all the evolution branches
                 {
                     int[] evoInts = mons[startIndex].getEvoInt();
                     for (int j = 0; j < evoInts.length; j++) // explore all evolutions
                     {
-                        if (evoInts[j] == 255)
-                            System.out.println(true);
+                        if (evoInts[j] == 255 && Log.enabled(Log.Level.DEBUG))
+                            Log.debug("Evolution index 255 in line of " + mons[startIndex].getIntIndex());
                         
                         thisEvoLine.add(mons[evoInts[j]-1]); // add this evolution T
-                        evoChecked.add(evoInts[j]);
+                        evoChecked[evoInts[j]] = true;
 
                         int thisEvo = evoInts[j] - 1;
 
@@ -145,23 +181,84 @@ class PokemonSorter<T extends Pokemon>
                             for (int k = 0; k < evoEvoInts.length; k++) // explore all evolutions
                             {
                                 thisEvoLine.add(mons[evoEvoInts[k]-1]); // add this evolution T
-                                evoChecked.add(evoEvoInts[k]);
+                                evoChecked[evoEvoInts[k]] = true;
                             }
-
-                            is3Stage = true; // set the 3-stage evolution line check to true
                         }
                     }
                 }
 
-                byEvoLines.add(thisEvoLine); // add the evolution line to the array
-                if ((mons[startIndex].hasEvos()) && (mons[startIndex].getBST() <= STARTER_BST))
+                addEvoLine(thisEvoLine);
+            }
+        }
+
+        indexEvoLines();
+    }
+
+    private void addEvoLine(ArrayList<T> evoLine)
+    {
+        T first = evoLine.get(0);
+        boolean is3Stage = false; // whether one of its evolutions evolves again
+
+        if (first.hasEvos())
+        {
+            for (int evo : first.getEvoInt())
+            {
+                is3Stage |= mons[evo - 1].hasEvos();
+            }
+        }
+
+        byEvoLines.add(evoLine); // add the evolution line to the array
+        if ((first.hasEvos()) && (first.getBST() <= STARTER_BST))
+        {
+            starterCand.add(evoLine); // add this in only if it can evolve
+        }
+        if ((is3Stage) && (first.getBST() <= STARTER_BST))
+        {
+            starterCand3Stages.add(evoLine); // add this in only if it's 3-stage
+        }
+    }
+
+    private void indexEvoLines()
+    {
+        // looks up the line and position of every species and where the branches of each line start,
+        // so getEvoLine doesn't have to search the lines
+        evoLineOf = new int[mons.length + 1];
+        evoLinePos = new int[mons.length + 1];
+        evoBranches = new int[byEvoLines.size()][][];
+        Arrays.fill(evoLineOf, -1);
+
+        for (int i = 0; i < byEvoLines.size(); i++)
+        {
+            ArrayList<T> line = byEvoLines.get(i);
+            evoBranches[i] = new int[line.size()][];
+
+            for (int j = 0; j < line.size(); j++)
+            {
+                T thisMon = line.get(j);
+                int index = thisMon.getIntIndex();
+
+                if (evoLineOf[index] < 0) // keep the first place it appears in
+                {
+                    evoLineOf[index] = i;
+                    evoLinePos[index] = j;
+                }
+
+                if (!thisMon.hasEvos() || thisMon.getEvoInt().length == 1)
                 {
-                    starterCand.add(thisEvoLine); // add this in only if it's 3-stage
+                    continue;
                 }
-                if ((is3Stage) && (mons[startIndex].getBST() <= STARTER_BST))
+
+                // the branches follow one another, each one taking up one place per evolution stage
+                int[] branches = new int[thisMon.getEvoInt().length];
+                branches[0] = j + 1;
+
+                for (int k = 1; k < branches.length; k++)
                 {
-                    starterCand3Stages.add(thisEvoLine); // add this in only if it's 3-stage
+                    int prev = branches[k - 1];
+                    branches[k] = (prev < line.size() && line.get(prev).hasEvos()) ? prev + 2 : prev + 1;
                 }
+
+                evoBranches[i][j] = branches;
             }
         }
     }
@@ -184,12 +281,21 @@ class PokemonSorter<T extends Pokemon>
 
     int getPokemonOldTier(int pokeInt, boolean bType)
     {
-        T mon = mons[pokeInt - 1];
-        int out = (bType) ? mon.getOldTypeTier() : mon.getOldTier();
+        int out = (bType) ? oldTypeTiers[pokeInt] : oldTiers[pokeInt];
         return out;
     }
 
-    ArrayList<T> getRandomStarters(int starterKind)
+    int getTier(T mon)
+    {
+        return tiers[mon.getIntIndex()];
+    }
+
+    int getTypeTier(T mon)
+    {
+        return typeTiers[mon.getIntIndex()];
+    }
+
+    ArrayList<T> getRandomStarters(int starterKind, SplittableRandom rand)
     {
         // gives three random T as starters
         // if starterKind == 0 : completely random
@@ -201,13 +307,13 @@ class PokemonSorter<T extends Pokemon>
         switch (starterKind)
         {
             case 0:
-                starters = generateRandomStarters(byEvoLines);
+                starters = generateRandomStarters(byEvoLines, rand);
                 break;
             case 1:
-                starters = generateRandomStarters(starterCand);
+                starters = generateRandomStarters(starterCand, rand);
                 break;
             case 2:
-                starters = generateRandomStarters(starterCand3Stages);
+                starters = generateRandomStarters(starterCand3Stages, rand);
                 break;
             default:
                 break;
@@ -216,63 +322,72 @@ class PokemonSorter<T extends Pokemon>
         return starters;
     }
 
-    ArrayList<T> generateRandomStarters(ArrayList<ArrayList<T>> evoLineList)
+    ArrayList<T> generateRandomStarters(ArrayList<ArrayList<T>> evoLineList, SplittableRandom rand)
     {
+        // picks the first T of 3 lines, with no type in common (so no T twice either)
+        // each pick is drawn only among the T the rest of the starters can still be completed with,
+        // so nothing is drawn and thrown away, and a missing combination is an error instead of an endless loop
+        final int nStarters = 3;
+        int[] masks = new int[evoLineList.size()];
+        int[] distinct = new int[evoLineList.size()]; // the different type masks, for the completion checks
+        int nDistinct = 0;
+
+        for (int i = 0; i < masks.length; i++)
+        {
+            masks[i] = TypeCoverage.mask(evoLineList.get(i).get(0));
+            int j = 0;
+
+            while (j < nDistinct && distinct[j] != masks[i])
+                j++;
+
+            if (j == nDistinct)
+                distinct[nDistinct++] = masks[i];
+        }
+
+        distinct = Arrays.copyOf(distinct, nDistinct);
+
         ArrayList<T> out = new ArrayList<>();
+        int team = 0; // types already taken
+        int[] cand = new int[masks.length];
 
-        while (out.size() < 3)
+        while (out.size() < nStarters)
         {
-            out.add(randomElement(evoLineList).get(0));
-            
-            if (containsRepeats(out) || isTypeRepeated(out))
-                out.remove(out.size() - 1);
-        }
+            int nLeft = nStarters - out.size() - 1;
+            int nCand = 0;
 
-        return out;
-    }
-    
-    private boolean containsRepeats(ArrayList<T> list)
-    {
-        boolean test = false;
-        
-        for (int i = 0; i < list.size() - 1; i++)
-            for (int j = i + 1; j < list.size(); j++)
+            for (int i = 0; i < masks.length; i++)
             {
-                test = (list.get(i) == list.get(j));
-                if (test) break;
+                if ((masks[i] & team) == 0 && canComplete(distinct, team | masks[i], nLeft))
+                    cand[nCand++] = i;
             }
-        
-        return test;
-    }
-    
-    private boolean isTypeRepeated(ArrayList<T> monList)
-    {
-        // decides if there is type redundancy in a list of T
-        // will return true if any types are repeated
-
-        boolean out = false; // assume it's not repeated
 
-        Type[][] types = new Type[monList.size()][2]; // two types per T
+            if (nCand == 0)
+            {
+                throw new IllegalStateException("No " + nStarters + " starters without a type in common among "
+                        + evoLineList.size() + " candidate lines");
+            }
 
-        for (int i = 0; i < monList.size(); i++) // cycle T list
-        {
-            types[i] = monList.get(i).getTypes();
+            int pick = cand[rand.nextInt(nCand)];
+            out.add(evoLineList.get(pick).get(0));
+            team |= masks[pick];
         }
 
-        for (int i = 0; i < monList.size(); i++) // cycle T list
-        {
-            for (int j = i + 1; j < monList.size(); j++) // cycle all T ahead of list
-            {                    
-                out =    ((types[i][0] == types[j][0]) || (types[i][0] == types[j][1]))
-                      || ((types[i][1] == types[j][0]) || (types[i][1] == types[j][1]));
+        return out;
+    }
 
-                if (out) break; // exit loop if repetition found
-            }
+    private static boolean canComplete(int[] masks, int team, int n)
+    {
+        // whether n more masks with no type in common can be added to team
+        if (n == 0)
+            return true;
 
-            if (out) break;
+        for (int m : masks)
+        {
+            if ((m & team) == 0 && canComplete(masks, team | m, n - 1))
+                return true;
         }
 
-        return out;
+        return false;
     }
 
     private boolean areSameType(T mon1, T mon2)
@@ -284,7 +399,7 @@ class PokemonSorter<T extends Pokemon>
         return out;
     }
 
-    int[][][] generateRivalTeams(int[][] finalRivalTeam, int[][][] levels, boolean noLeg)
+    int[][][] generateRivalTeams(int[][] finalRivalTeam, int[][][] levels, boolean noLeg, SplittableRandom rand)
     {
         // generates Rival teams that have persistent T throughout the battles
         // depending on starter chosen by the player, and which is forced to be mixed
@@ -297,11 +412,11 @@ class PokemonSorter<T extends Pokemon>
         for (int i = 0; i < INDEX_RIVAL.length; i++) // cycle starters (each starter will generate a different team)
         {
             // decide the evolutionary line of the starter first
-            ArrayList<T> starterSlot = getEvoLine(starters.get(i), -1);
+            ArrayList<T> starterSlot = getEvoLine(starters.get(i), -1, rand);
 
             // generate the final team first
-            ArrayList<T> prevMonList = new ArrayList<>(); // keep track of previous T in team
-            prevMonList.add(starterSlot.get(starterSlot.size() - 1)); // add starter evo to take into account its types
+            TypeCoverage prevMonTypes = new TypeCoverage(); // keep track of the types of previous T in team
+            prevMonTypes.add(starterSlot.get(starterSlot.size() - 1)); // add starter evo to take into account its types
 
             // initialize the other slots 
             ArrayList<ArrayList<T>> monSlots = new ArrayList<>();
@@ -312,14 +427,14 @@ class PokemonSorter<T extends Pokemon>
                 {
                     boolean isLead = (j == 0); // forced evolved unless it's the lead
                     T thisMon = mons[finalRivalTeam[i][j] - 1];
-                    T chosenMon = getSameTier(thisMon, noLeg, (!isLead), true, prevMonList);
+                    T chosenMon = getSameTier(thisMon, noLeg, (!isLead), true, prevMonTypes, rand);
 
                     finalTeam[j] = chosenMon.getIntIndex();
-                    monSlots.add(getEvoLine(chosenMon, -1));
+                    monSlots.add(getEvoLine(chosenMon, -1, rand));
 
                     // may result in an unevolved T, so change it to be the final form in the last battle
                     //finalTeam[j] = monSlots[j][monSlots[j].length - 1];
-                    prevMonList.add(chosenMon);
+                    prevMonTypes.add(chosenMon);
 
                 }
                 else
@@ -367,57 +482,44 @@ class PokemonSorter<T extends Pokemon>
         return rivalTeams;
     }
 
-    int[] evolveTeam(int[] monTeam, int[] lvls)
+    int[] evolveTeam(int[] monTeam, int[] lvls, SplittableRandom rand)
     {
         // makes T team evolve given their levels
         int[] evoTeam = new int[monTeam.length];
 
         for (int i = 0; i < monTeam.length; i++) // cycle team
         {
-            evoTeam[i] = decideEvo(getEvoLine(mons[monTeam[i] - 1], -1), lvls[i]).getIntIndex();
+            evoTeam[i] = decideEvo(getEvoLine(mons[monTeam[i] - 1], -1, rand), lvls[i]).getIntIndex();
         }
 
         return evoTeam;
     }
 
-    private ArrayList<T> getEvoLine(T mon, int branch)
+    private ArrayList<T> getEvoLine(T mon, int branch, SplittableRandom rand)
     {
         // gets the evolutionary line of a T in order
         // if there's a branch ahead, branch dictates what should happen
         // branch = 0, 1, ... : the appropriate branch is chosen
         // branch = -1 : a random branch is chosen
 
-        int evoIndex = -1; // find the evolutionary line index
-        int evoPos = -1; // find the position in that evo line
-
-        for (int i = 0; i < byEvoLines.size(); i++) // cycle evo-lines
-        {
-            for (int j = 0; j < byEvoLines.get(i).size(); j++)
-            {
-                if (mon.equals(byEvoLines.get(i).get(j)))
-                {
-                    evoIndex = i;
-                    evoPos = j;
-                    break;
-                }
-            }
-        }
+        int evoIndex = evoLineOf[mon.getIntIndex()]; // the evolutionary line index
+        int evoPos = evoLinePos[mon.getIntIndex()]; // the position in that evo line
+        ArrayList<T> evoLine = byEvoLines.get(evoIndex);
+        int[][] branches = evoBranches[evoIndex];
 
         ArrayList<T> outList = new ArrayList<>();
 
-        for (int i = 0; i < byEvoLines.get(evoIndex).size();) // cycle line members
+        for (int i = 0; i < evoLine.size();) // cycle line members
         {
-            outList.add(byEvoLines.get(evoIndex).get(i));
-            T thisMon = byEvoLines.get(evoIndex).get(i);
+            T thisMon = evoLine.get(i);
+            outList.add(thisMon);
 
             if (!thisMon.hasEvos())
             {
                 break; // no more evos to look into
             }
             // figure out whether to continue normally or skip to a particular branch
-            int[] thisEvos = thisMon.getEvoInt();
-
-            if (thisEvos.length == 1) // only one possible evolution
+            if (branches[i] == null) // only one possible evolution
             {
                 i++;
             }
@@ -429,20 +531,8 @@ class PokemonSorter<T extends Pokemon>
                 }
                 else // need to choose a branch now
                 {
-                    int nJumps = (branch >= 0) ? branch : (int) floor(random() * thisEvos.length);
-
-                    i++;
-                    for (int j = 0; j < nJumps; j++) // jump accordingly to the proper branch
-                    {
-                        if (byEvoLines.get(evoIndex).get(i).hasEvos())
-                        {
-                            i += 2;
-                        }
-                        else
-                        {
-                            i++;
-                        }
-                    }
+                    int nJumps = (branch >= 0) ? branch : rand.nextInt(branches[i].length);
+                    i = branches[i][nJumps]; // jump to the proper branch
                 }
             }
         }
@@ -512,18 +602,7 @@ class PokemonSorter<T extends Pokemon>
     int findEvoLineContaining(T mon)
     {
         // finds the evolutionary line containing T with index n
-        int out = -1;
-
-        for (int i = 0; i < byEvoLines.size(); i++)
-        {
-            if (byEvoLines.get(i).contains(mon))
-            {
-                out = i;
-                break;
-            }
-        }
-
-        return out;
+        return evoLineOf[mon.getIntIndex()];
     }
 
     ArrayList<ArrayList<T>> getEvoLines()
@@ -548,41 +627,54 @@ class PokemonSorter<T extends Pokemon>
     
     void print(Names names)
     {
+        if (!Log.enabled(Log.Level.DEBUG))
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
         ArrayList<ArrayList<T>> list = tierList.getTierList();
         for (int tier = 0; tier < list.size(); tier++)
         {
-            System.out.println("Tier " + tier + ":");
+            sb.append("Tier ").append(tier).append(":\n");
 
             for (T mon : list.get(tier))
             {
-                System.out.println(names.pokemon(mon.getIntIndex()));
+                sb.append(names.pokemon(mon.getIntIndex())).append('\n');
             }
         }
+
+        Log.debug(sb.toString());
+    }
+
+    T getSameTier(T mon, boolean noLeg, boolean onlyEvolved, boolean forcedMixed, TypeCoverage prevMonTypes, SplittableRandom rand)
+    {
+        return getSameTier(oldTiers[mon.getIntIndex()], noLeg, onlyEvolved, forcedMixed, prevMonTypes, rand);
     }
 
-    T getSameTier(T mon, boolean noLeg, boolean onlyEvolved, boolean forcedMixed, ArrayList<T> prevMonArray)
+    T getSameTier(int tier, boolean noLeg, boolean onlyEvolved, boolean forcedMixed, TypeCoverage prevMonTypes, SplittableRandom rand)
     {
-        return (T) tierList.getSameTier(mon.getOldTier(), noLeg, onlyEvolved, forcedMixed, prevMonArray);
+        return (T) tierList.getSameTier(tier, noLeg, onlyEvolved, forcedMixed, prevMonTypes, rand);
     }
 
-    T getSameTier(T mon, Type type, boolean noLeg, boolean onlyEvolved)
+    T getSameTier(T mon, Type type, boolean noLeg, boolean onlyEvolved, SplittableRandom rand)
     {
         PokemonTierList curTierList = (type == Type.NO_TYPE) ? tierList : tierListType[type.intIndex()];
-        int tier = (type == Type.NO_TYPE) ? mon.getOldTier() : mon.getOldTypeTier();
-        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved);
+        int tier = (type == Type.NO_TYPE) ? oldTiers[mon.getIntIndex()] : oldTypeTiers[mon.getIntIndex()];
+        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved, rand);
     }
     
-    T getSameTier(T mon, Type[] types, boolean noLeg, boolean onlyEvolved)
+    T getSameTier(T mon, Type[] types, boolean noLeg, boolean onlyEvolved, SplittableRandom rand)
     {
-        Type type = randomElement(types);
+        Type type = randomElement(types, rand);
         PokemonTierList curTierList = (type == Type.NO_TYPE) ? tierList : tierListType[type.intIndex()];
-        int tier = (type == Type.NO_TYPE) ? mon.getOldTier() : mon.getOldTypeTier();
-        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved);
+        int tier = (type == Type.NO_TYPE) ? oldTiers[mon.getIntIndex()] : oldTypeTiers[mon.getIntIndex()];
+        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved, rand);
     }
     
-    T getSameTier(int tier, Type type, boolean noLeg, boolean onlyEvolved)
+    T getSameTier(int tier, Type type, boolean noLeg, boolean onlyEvolved, SplittableRandom rand)
     {
         PokemonTierList curTierList = (type == Type.NO_TYPE) ? tierList : tierListType[type.intIndex()];
-        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved);
+        return (T) curTierList.getSameTier(tier, noLeg, onlyEvolved, rand);
     }
 }
@@ -5,6 +5,7 @@ import data.Pokemon;
 import static java.lang.Math.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 public class PokemonTierList<T extends Pokemon>
 {
@@ -13,6 +14,21 @@ public class PokemonTierList<T extends Pokemon>
     private int top;
     private int nTiers;
     
+    // candidates for getSameTier, worked out once since the tiers never change after sorting
+    // indexed by [filter][tier], where filter is a combination of NO_LEG and ONLY_EVOLVED
+    // byFilter holds each tier with the filter applied, pools the same but with empty tiers
+    // replaced by their nearest non-empty neighbours, the way getSameTier expands its search
+    // for forced mixed teams, the candidates' types are kept as TypeCoverage masks,
+    // both one per candidate and grouped by mask, so the candidates sharing a mask are checked at once
+    private static final int NO_LEG = 0b01;
+    private static final int ONLY_EVOLVED = 0b10;
+    
+    private ArrayList<ArrayList<ArrayList<T>>> byFilter; // [filter][tier]
+    private ArrayList<ArrayList<ArrayList<T>>> pools; // [filter][tier]
+    private int[][][] masks; // [filter][tier][candidate]
+    private int[][][] groupMasks; // [filter][tier][group] distinct masks of the tier
+    private int[][][] groupSizes; // [filter][tier][group] candidates with that mask
+    
     public PokemonTierList(T[] itemList, int bot, int top, int nTiers)
     {
         this(new ArrayList<T>(Arrays.asList(itemList)), bot, top, nTiers);
@@ -24,6 +40,7 @@ public class PokemonTierList<T extends Pokemon>
         this.top = top;
         this.nTiers = nTiers;
         sort(itemList);
+        fillPools();
     }
      
     private void sort(ArrayList<T> itemList)
@@ -54,124 +71,174 @@ public class PokemonTierList<T extends Pokemon>
         return tierList;
     }
     
-    T getSameTier(int tier, boolean noLeg, boolean onlyEvolved)
+    private void fillPools()
     {
-        ArrayList<T> curList = fillList(tier, noLeg, onlyEvolved);
-        int expansion = 1;
+        byFilter = new ArrayList<>();
+        pools = new ArrayList<>();
+        masks = new int[4][nTiers][];
+        groupMasks = new int[4][nTiers][];
+        groupSizes = new int[4][nTiers][];
         
-        while (curList.isEmpty() && expansion < nTiers)
+        for (int filter = 0; filter < 4; filter++)
         {
-            expand(curList, expansion, tier, noLeg, onlyEvolved);
-            expansion++;
+            byFilter.add(new ArrayList<>());
+            pools.add(new ArrayList<>());
+            
+            for (int tier = 0; tier < nTiers; tier++)
+            {
+                byFilter.get(filter).add(fillList(tier, (filter & NO_LEG) != 0, (filter & ONLY_EVOLVED) != 0));
+                fillMasks(filter, tier);
+            }
+            
+            for (int tier = 0; tier < nTiers; tier++)
+            {
+                ArrayList<T> curList = new ArrayList<>(byFilter.get(filter).get(tier));
+                int expansion = 1;
+                
+                while (curList.isEmpty() && expansion < nTiers)
+                {
+                    expand(curList, expansion, tier, filter);
+                    expansion++;
+                }
+                
+                pools.get(filter).add(curList);
+            }
+        }
+    }
+    
+    private void fillMasks(int filter, int tier)
+    {
+        ArrayList<T> mons = byFilter.get(filter).get(tier);
+        int[] monMasks = new int[mons.size()];
+        int[] groupMask = new int[mons.size()];
+        int[] groupSize = new int[mons.size()];
+        int nGroups = 0;
+        
+        for (int i = 0; i < mons.size(); i++)
+        {
+            monMasks[i] = TypeCoverage.mask(mons.get(i));
+            int g = 0;
+            
+            while (g < nGroups && groupMask[g] != monMasks[i])
+                g++;
+            
+            if (g == nGroups)
+                groupMask[nGroups++] = monMasks[i];
+            
+            groupSize[g]++;
         }
         
-        return randomElement(curList);
+        masks[filter][tier] = monMasks;
+        groupMasks[filter][tier] = Arrays.copyOf(groupMask, nGroups);
+        groupSizes[filter][tier] = Arrays.copyOf(groupSize, nGroups);
+    }
+    
+    private static int filter(boolean noLeg, boolean onlyEvolved)
+    {
+        return ((noLeg) ? NO_LEG : 0) | ((onlyEvolved) ? ONLY_EVOLVED : 0);
+    }
+    
+    T getSameTier(int tier, boolean noLeg, boolean onlyEvolved, SplittableRandom rand)
+    {
+        ArrayList<T> pool = pools.get(filter(noLeg, onlyEvolved)).get(tier);
+        return pool.get(rand.nextInt(pool.size()));
     }
 
-    T getSameTier(int tier, boolean noLeg, boolean onlyEvolved, boolean forcedMix, ArrayList<T> prevMon)
+    T getSameTier(int tier, boolean noLeg, boolean onlyEvolved, boolean forcedMix, TypeCoverage team, SplittableRandom rand)
     {
-        ArrayList<T> curList = fillList(tier, noLeg, onlyEvolved, forcedMix, prevMon);
+        if (!forcedMix)
+            return getSameTier(tier, noLeg, onlyEvolved, rand);
+        
+        // the type check depends on the team, so this one goes through the filtered tiers
+        // counting the candidates first and then walking to the chosen one, instead of collecting them
+        int filter = filter(noLeg, onlyEvolved);
+        int n = countMixed(filter, tier, team);
         int expansion = 1;
         
-        while (curList.isEmpty() && expansion < nTiers)
+        while (n == 0 && expansion < nTiers)
         {
-            expand(curList, expansion, tier, noLeg, onlyEvolved, forcedMix, prevMon);
+            n = countMixed(filter, expansionUp(expansion, tier), team) + countMixed(filter, expansionDown(expansion, tier), team);
             expansion++;
         }
         
-        return randomElement(curList);
+        int r = rand.nextInt(n);
+        expansion--;
+        
+        if (expansion == 0)
+            return pickMixed(filter, tier, r, team);
+        
+        int up = expansionUp(expansion, tier);
+        int nUp = countMixed(filter, up, team);
+        return (r < nUp) ? pickMixed(filter, up, r, team) : pickMixed(filter, expansionDown(expansion, tier), r - nUp, team);
     }
     
-    private ArrayList<T> fillList(int tier, boolean noLeg, boolean onlyEvolved)
+    private T pickMixed(int filter, int tier, int r, TypeCoverage team)
     {
-        ArrayList<T> list = new ArrayList<>();
+        // the r-th candidate of tier that passes the type check
+        int[] monMasks = masks[filter][tier];
         
-        if (tier >= nTiers)
-            nTiers = nTiers;
+        for (int i = 0; i < monMasks.length; i++)
+        {
+            if (!team.isRedundant(monMasks[i]) && r-- == 0)
+                return byFilter.get(filter).get(tier).get(i);
+        }
         
-        for (T mon : tierList.get(tier))
+        throw new IllegalStateException("Fewer candidates than counted");
+    }
+    
+    private int countMixed(int filter, int tier, TypeCoverage team)
+    {
+        if (tier < 0)
+            return 0;
+        
+        int[] groupMask = groupMasks[filter][tier];
+        int n = 0;
+        
+        for (int g = 0; g < groupMask.length; g++)
         {
-            if (   (noLeg && mon.isLegendary())
-                || (onlyEvolved && !mon.hasPre()))
-                continue;
-            
-            list.add(mon);
+            if (!team.isRedundant(groupMask[g]))
+                n += groupSizes[filter][tier][g];
         }
         
-        return list;
-    }    
+        return n;
+    }
     
-    private ArrayList<T> fillList(int tier, boolean noLeg, boolean onlyEvolved, boolean forcedMix, ArrayList<T> prevMon)
+    private ArrayList<T> fillList(int tier, boolean noLeg, boolean onlyEvolved)
     {
         ArrayList<T> list = new ArrayList<>();
         
         for (T mon : tierList.get(tier))
         {
             if (   (noLeg && mon.isLegendary())
-                || (onlyEvolved && !mon.hasPre())
-                || (forcedMix && isTypeRedundant(mon, prevMon)))
+                || (onlyEvolved && !mon.hasPre()))
                 continue;
             
             list.add(mon);
         }
         
         return list;
-    }
+    }    
     
-    private boolean isTypeRedundant(T mon, ArrayList<T> monList)
+    private void expand(ArrayList<T> curList, int expansion, int tier, int filter)
     {
-        // decides if there is type redundancy in a list of T
-        // will return true only if both T's types are repeated
+        int up = expansionUp(expansion, tier);
+        int down = expansionDown(expansion, tier);
         
-        ArrayList<T> monListAll = new ArrayList(monList);
-        monListAll.add(mon);
-
-        boolean out = false; // assume it's not repeated
-
-        Type[][] types = new Type[monListAll.size()][2]; // two types per T
-
-        for (int i = 0; i < monListAll.size(); i++) // cycle T list
-            types[i] = monListAll.get(i).getTypes();
-
-        for (int i = 0; i < monListAll.size(); i++) // cycle T list
-        {
-            boolean test1 = false;
-            boolean test2 = false;
-
-            for (int j = 0; j < monListAll.size(); j++) // first type
-            {
-                if (i == j) continue; // skip comparing with self
-                test1 = (types[i][0] == types[j][0]) || (types[i][0] == types[j][1]); // compare first type
-                if (test1) break; // exit loop if repetition found
-            }
-
-            for (int j = 0; j < monListAll.size(); j++) // second type
-            {
-                if (i == j) continue; // skip comparing with self
-                test2 = (types[i][1] == types[j][0]) || (types[i][1] == types[j][1]); // compare second type
-                if (test2) break; // exit loop if repetition found
-            }
-
-            out = (test1) && (test2);// only get a true result if both tests pass
-            if (out) break;
-        }
-
-        return out;
+        if (up >= 0)
+            curList.addAll(byFilter.get(filter).get(up));
+        if (down >= 0)
+            curList.addAll(byFilter.get(filter).get(down));
     }
     
-    private void expand(ArrayList<T> curList, int expansion, int tier, boolean noLeg, boolean onlyEvolved)
+    private int expansionUp(int expansion, int tier)
     {
-        if (tier + expansion < nTiers-1)
-            curList.addAll(fillList(tier + expansion, noLeg, onlyEvolved));
-        if (tier - expansion >= 0)
-            curList.addAll(fillList(tier - expansion, noLeg, onlyEvolved));
+        // tier added above tier at this step of the expansion (never the top tier), -1 if none
+        return (tier + expansion < nTiers-1) ? tier + expansion : -1;
     }
-
-    private void expand(ArrayList<T> curList, int expansion, int tier, boolean noLeg, boolean onlyEvolved, boolean forcedMix, ArrayList<T> prevMon)
+    
+    private int expansionDown(int expansion, int tier)
     {
-        if (tier + expansion < nTiers-1)
-            curList.addAll(fillList(tier + expansion, noLeg, onlyEvolved, forcedMix, prevMon));
-        if (tier - expansion >= 0)
-            curList.addAll(fillList(tier - expansion, noLeg, onlyEvolved, forcedMix, prevMon));
+        return (tier - expansion >= 0) ? tier - expansion : -1;
     }
+
 }
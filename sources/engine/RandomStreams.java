@@ -0,0 +1,71 @@
+package engine;
+
+import java.util.SplittableRandom;
+
+class RandomStreams
+{
+    // hands out an independent random stream for each randomization stage
+    // every stream is derived only from the seed and the stage, never from the order
+    // in which stages ask for them, so a stage can be re-run on its own with the same result
+
+    enum Stage
+    {
+        POKEDEX(1), // PokedexRandomizer
+        MOVES(2), // MoveEditor and MoveSorter
+        EGG_MOVES(3), // PokemonEditor
+        STARTERS(4), // PokemonSorter starter draw
+        ROUTES(5), // RouteEditor
+        TRAINERS(6), // TrainerEditor
+        TEAMS(7), // TeamCustomizer
+        SAVE(8); // SavePatcher
+
+        private final long id; // fixed so that reordering stages doesn't change the streams
+
+        private Stage(long id)
+        {
+            this.id = id;
+        }
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long INDEX_GAMMA = 0xC2B2AE3D27D4EB4FL; // another odd constant, for the item streams
+
+    private final long seed;
+
+    RandomStreams(long seed)
+    {
+        this.seed = seed;
+    }
+
+    static long newSeed()
+    {
+        return new SplittableRandom().nextLong();
+    }
+
+    long getSeed()
+    {
+        return seed;
+    }
+
+    SplittableRandom stream(Stage stage)
+    {
+        return new SplittableRandom(mix64(seed ^ mix64(stage.id * GOLDEN_GAMMA)));
+    }
+
+    SplittableRandom stream(Stage stage, int index)
+    {
+        // stream for one item of a stage (a trainer, a route), derived only from the seed, the stage and the index,
+        // so the items can be worked on in any order or at the same time
+        // the index is mixed on its own before joining the stage's seed, rather than added in steps of GOLDEN_GAMMA,
+        // which would make the item seeds the very values stream(stage) hands out
+        return new SplittableRandom(mix64(mix64(seed ^ mix64(stage.id * GOLDEN_GAMMA)) ^ mix64((index + 1) * INDEX_GAMMA)));
+    }
+
+    private static long mix64(long z)
+    {
+        // finalizer of SplittableRandom, spreads nearby inputs over the whole range
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
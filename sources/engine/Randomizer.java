@@ -0,0 +1,173 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+
+import data.PokemonData;
+import engine.RandomStreams.Stage;
+
+class Randomizer
+{
+    // runs the whole randomization for one seed
+    // the parsed Pokemon data, the patched base images and the data parsed from the base ROM
+    // are only ever read, each run works on copy-on-write copies of them,
+    // so several seeds can be generated side by side
+
+    private final DataReader dataReader;
+    private final RomImage baseRom;
+    private final RomImage baseSav;
+    private final RomSnapshot snapshot;
+    private final PokemonSorter<PokemonData> dataSorter;
+
+    /////////////////////////////////////
+    // randomizer settings
+    /////////////////////////////////////
+
+    int starterKind = 1; // kinds of starters (0 = totally random, 1 = at least 1 evolution, 2 = 3-stage only)
+
+    boolean movesWSimilar = true; // move TMs replaced by similar strength
+
+    boolean routeWSimilar = true; // route Pokemon with similar strength Pokemon
+    boolean routeNoLeg = true; // whether to have no legendary in wild or yes
+    boolean routeType = true; // whether to have routes with type-specific Pokemon
+
+    boolean trainerWSimilar = true; // trainer Pokemon with similar strength Pokemon
+    int typeExpert = 2; // typeExpert (0 = no type specialists, 1 = preserve type specialists, 2 = randomize type specialists)
+    boolean persRival = true; // have a Rival team with persistent Pokemon or not
+    boolean trainerNoLeg = true; // whether to have no legendary in Trainer parties or yes
+    boolean extraCust = true; // whether to have customized Trainer Pokemon moves
+
+    boolean parallel = true; // randomize routes and trainers and customize movesets on several threads (same result either way)
+
+    Randomizer(DataReader dataReader, RomImage rom, RomImage sav, File fileCache, StageMetrics metrics) throws IOException
+    {
+        this.dataReader = dataReader;
+        this.baseSav = sav;
+        this.baseRom = rom.copy();
+        metrics.track(baseRom);
+
+        // the ROM patches don't depend on the seed, so they are applied once to the shared base
+        metrics.stage("RomPatcher");
+        RomPatcher romPatcher = new RomPatcher(baseRom);
+
+        romPatcher.updateHeldItemRates();
+        romPatcher.updateTypeEnhanceItems();
+
+        metrics.stage("RomSnapshot", true); // sprites are read on the common pool when not cached
+        this.snapshot = RomSnapshot.load(baseRom, fileCache);
+
+        // the Pokemon data is sorted the same way for every seed
+        metrics.stage("DataSorter");
+        this.dataSorter = new PokemonSorter<>(dataReader.copyPokemonData());
+        metrics.finish();
+    }
+
+    static class Output
+    {
+        final long seed;
+        final RomImage rom;
+        final RomImage sav;
+        final StageMetrics metrics;
+
+        private Output(long seed, RomImage rom, RomImage sav, StageMetrics metrics)
+        {
+            this.seed = seed;
+            this.rom = rom;
+            this.sav = sav;
+            this.metrics = metrics;
+        }
+    }
+
+    Output generate(long seed) throws IOException
+    {
+        RomImage rom = baseRom.copy();
+        RomImage sav = baseSav.copy();
+
+        // every random choice is drawn from a stream derived from this seed,
+        // so passing the same seed again reproduces the same ROM
+        RandomStreams random = new RandomStreams(seed);
+
+        StageMetrics metrics = new StageMetrics(seed);
+        metrics.track(rom);
+        metrics.track(sav);
+
+        /////////////////////////////////////
+        // randomize Pokedex Pokemon
+        /////////////////////////////////////
+        metrics.stage("PokedexRandomizer");
+        PokedexRandomizer dexRand = new PokedexRandomizer(dataSorter, dataReader.copyPokemonData(), dataReader.copySprites(), dataReader.getPalettes(), random.stream(Stage.POKEDEX));
+
+        metrics.stage("Editors");
+        RomWriter romWriter = new RomWriter(rom);
+
+        PokemonEditor monEditor = new PokemonEditor(dexRand, random.stream(Stage.EGG_MOVES));
+        MoveEditor moveEditor = new MoveEditor(snapshot, random.stream(Stage.MOVES));
+        RouteEditor routeEditor = new RouteEditor(snapshot, monEditor.getAllPokemon(), random.stream(Stage.ROUTES));
+        TrainerEditor trainerEditor = new TrainerEditor(snapshot, monEditor.getAllPokemon(), random.stream(Stage.TRAINERS));
+        SpriteEditor spriteEditor = new SpriteEditor(dexRand, snapshot);
+
+        metrics.stage("MoveEditor");
+        moveEditor.updateMoves();
+        moveEditor.randomizeTMs(movesWSimilar);
+        romWriter.replaceAllMoves(moveEditor.getMoves(), moveEditor.getAllLearnable());
+
+        metrics.stage("MoveSorter");
+        MoveSorter moveSorter = new MoveSorter(moveEditor.getMoves(), moveEditor.getAllLearnable(), moveEditor.getCritAnims());
+
+        //monEditor.randomizeMovesets();
+        //monEditor.randomizeCompatibilities();
+        metrics.stage("fitEggMoves");
+        monEditor.fitEggMoves(moveEditor.getAllLearnableBytes());
+        metrics.stage("replaceAllPokemon");
+        romWriter.replaceAllPokemon(monEditor.getAllPokemon());
+
+        metrics.stage("packSprites");
+        spriteEditor.packSprites();
+        metrics.stage("replaceAllSprites");
+        romWriter.replaceAllSprites(spriteEditor.getAllSprites(), spriteEditor.getAllTrainerSprites(), spriteEditor.getEggSprite(), spriteEditor.getAllPalettes());
+
+        metrics.stage("PokemonSorter");
+        Names names = new Names(monEditor.getAllPokemon(), trainerEditor.getTrainers(), moveEditor.getMoves());
+        PokemonSorter monSorter = dexRand.newSorter(monEditor.bytesToMon(snapshot.getStarters()));
+
+        metrics.stage("randomizeStarters");
+        romWriter.randomizeStarters(monSorter, starterKind, random.stream(Stage.STARTERS));
+
+        metrics.stage("RouteEditor", parallel);
+        routeEditor.scaleLevel((float) 1.0);
+        routeEditor.randomizeSlotPokemon(monSorter, routeWSimilar, routeNoLeg, routeType, random, parallel);
+        romWriter.replaceAllRoutePokemon(routeEditor.getRoutes());
+
+        metrics.stage("TrainerEditor", parallel);
+        trainerEditor.buffKanto(monSorter, moveSorter);
+        trainerEditor.scaleLevel((float) 1.0);
+        trainerEditor.giveStatExp();
+        trainerEditor.randomizePokemon(monSorter, trainerWSimilar, typeExpert, persRival, trainerNoLeg, extraCust, random, parallel);
+        trainerEditor.kantoForceEvolved(monSorter);
+
+        metrics.stage("applyMovesets", parallel);
+        TeamCustomizer teamCust = new TeamCustomizer(moveEditor.getMoves(), moveSorter, names, random.stream(Stage.TEAMS));
+        trainerEditor.applyMovesets(monEditor.getAllPokemon(), teamCust, random, parallel);
+        metrics.stage("replaceAllTrainers");
+        romWriter.replaceAllTrainers(trainerEditor.getTrainers());
+
+        /////////////////////////////////////
+        // console log
+        /////////////////////////////////////
+
+        //dexRand.printPokedex(names);
+        //trainerEditor.printCustTeams(names);
+        //moveSorter.printMoveTiers(names);
+
+        /////////////////////////////////////
+        // manipulate save data
+        /////////////////////////////////////
+        metrics.stage("SavePatcher");
+        SavePatcher savPatcher = new SavePatcher(sav, random.stream(Stage.SAVE));
+        savPatcher.generateTeam(monSorter, teamCust, monEditor.getAllPokemon(), 5, 45);
+        savPatcher.updateChecksums();
+        metrics.finish();
+
+        return new Output(seed, rom, sav, metrics);
+    }
+}
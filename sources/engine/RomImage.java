@@ -0,0 +1,394 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+import static java.nio.file.StandardCopyOption.*;
+
+import util.IntList;
+
+class RomImage
+{
+    // in-memory image of a ROM (or save) file
+    // the data is split in 0x4000 byte banks; a copy shares the banks of the
+    // image it was made from and only duplicates a bank the first time it writes to it,
+    // so the source file is read once and nothing touches the disk until writeTo()
+    // every byte written since the file was loaded is marked dirty, one bit per byte for the banks written to,
+    // and copies inherit the marks, so the dirty ranges cover everything that may differ from the loaded file
+
+    static final int BANK_SIZE = 0x4000;
+
+    private final int length;
+    private final byte[][] banks;
+    private final boolean[] owned; // whether each bank is private to this image
+    private final long[][] dirty; // bytes written to each bank, null for a bank never written to
+
+    // traffic through this image, for StageMetrics
+    private long bytesRead = 0;
+    private long bytesWritten = 0;
+
+    private RomImage(int length, byte[][] banks, boolean[] owned, long[][] dirty)
+    {
+        this.length = length;
+        this.banks = banks;
+        this.owned = owned;
+        this.dirty = dirty;
+    }
+
+    static RomImage load(File file) throws IOException
+    {
+        byte[] data;
+
+        try (
+                RandomAccessFile stream = new RandomAccessFile(file, "r");
+                FileChannel ch = stream.getChannel();)
+        {
+            ByteBuffer buffer = ByteBuffer.allocate((int) ch.size());
+
+            while (buffer.hasRemaining())
+            {
+                if (ch.read(buffer, buffer.position()) < 0)
+                {
+                    break; // reached end of file
+                }
+            }
+
+            data = buffer.array();
+        }
+
+        int nBanks = (data.length + BANK_SIZE - 1) / BANK_SIZE;
+        byte[][] banks = new byte[nBanks][];
+        boolean[] owned = new boolean[nBanks];
+
+        for (int i = 0; i < nBanks; i++)
+        {
+            int bankLength = Math.min(BANK_SIZE, data.length - i * BANK_SIZE);
+            banks[i] = new byte[bankLength];
+            System.arraycopy(data, i * BANK_SIZE, banks[i], 0, bankLength);
+            owned[i] = true;
+        }
+
+        return new RomImage(data.length, banks, owned, new long[nBanks][]);
+    }
+
+    synchronized RomImage copy()
+    {
+        // copy-on-write view of this image
+        // the banks become shared, so both images duplicate a bank before writing to it
+        // several threads may copy the same base image, as long as nothing writes to the base
+        long[][] copyDirty = new long[banks.length][];
+
+        for (int i = 0; i < owned.length; i++)
+        {
+            owned[i] = false;
+
+            if (dirty[i] != null)
+            {
+                copyDirty[i] = dirty[i].clone();
+            }
+        }
+
+        return new RomImage(length, banks.clone(), new boolean[banks.length], copyDirty);
+    }
+
+    int length()
+    {
+        return length;
+    }
+
+    byte[] hash()
+    {
+        // SHA-256 of the contents, identifies an image independently of where it was loaded from
+        MessageDigest digest = CacheFile.sha256();
+
+        for (byte[] bank : banks)
+        {
+            digest.update(bank);
+        }
+
+        return digest.digest();
+    }
+
+    long crc32()
+    {
+        CRC32 crc = new CRC32();
+
+        for (byte[] bank : banks)
+        {
+            crc.update(bank);
+        }
+
+        return crc.getValue();
+    }
+
+    IntList dirtyRanges()
+    {
+        // the dirty bytes as sorted, disjoint ranges, a start and an end (exclusive) for each
+        // ranges running across a bank boundary are joined
+        IntList out = new IntList();
+        int start = -1; // start of the range being built
+
+        for (int bank = 0; bank < banks.length; bank++)
+        {
+            if (dirty[bank] == null)
+            {
+                if (start >= 0)
+                {
+                    out.add(start);
+                    out.add(bank * BANK_SIZE);
+                    start = -1;
+                }
+
+                continue;
+            }
+
+            for (int w = 0; w < dirty[bank].length; w++)
+            {
+                long word = dirty[bank][w];
+                int base = bank * BANK_SIZE + w * Long.SIZE;
+                int bit = 0;
+
+                while (bit < Long.SIZE)
+                {
+                    if (start < 0)
+                    {
+                        long rest = word >>> bit; // looking for the next set bit
+                        if (rest == 0)
+                        {
+                            break;
+                        }
+
+                        bit += Long.numberOfTrailingZeros(rest);
+                        start = base + bit;
+                    }
+                    else
+                    {
+                        long rest = ~word >>> bit; // looking for the next clear bit
+                        if (rest == 0)
+                        {
+                            break;
+                        }
+
+                        bit += Long.numberOfTrailingZeros(rest);
+                        out.add(start);
+                        out.add(base + bit);
+                        start = -1;
+                    }
+                }
+            }
+        }
+
+        if (start >= 0)
+        {
+            out.add(start);
+            out.add(length);
+        }
+
+        return out;
+    }
+
+    private void markDirty(int bank, int bankPos, int len)
+    {
+        if (dirty[bank] == null)
+        {
+            dirty[bank] = new long[BANK_SIZE / Long.SIZE];
+        }
+
+        long[] bits = dirty[bank];
+
+        for (int i = bankPos; i < bankPos + len; )
+        {
+            int w = i / Long.SIZE;
+            int from = i % Long.SIZE;
+            int to = Math.min(Long.SIZE, from + (bankPos + len - i));
+            long mask = (to == Long.SIZE) ? -1L << from : ((1L << to) - 1) & (-1L << from);
+            bits[w] |= mask;
+            i += to - from;
+        }
+    }
+
+    long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    byte readByte(int pos)
+    {
+        bytesRead++;
+        return banks[pos / BANK_SIZE][pos % BANK_SIZE];
+    }
+
+    byte[] read(int pos, int length)
+    {
+        byte[] out = new byte[length];
+        int n = 0;
+        bytesRead += length;
+
+        while (n < length) // copy bank by bank
+        {
+            int bank = (pos + n) / BANK_SIZE;
+            int bankPos = (pos + n) % BANK_SIZE;
+            int len = Math.min(length - n, banks[bank].length - bankPos);
+            System.arraycopy(banks[bank], bankPos, out, n, len);
+            n += len;
+        }
+
+        return out;
+    }
+
+    int indexOf(int pos, byte term)
+    {
+        // position of the first term at or after pos, or -1 if the image ends first
+        // the banks are scanned in place, and the bytes up to the terminator count as read
+        for (int bank = pos / BANK_SIZE; bank < banks.length; bank++)
+        {
+            int start = (bank == pos / BANK_SIZE) ? pos % BANK_SIZE : 0;
+            int i = ByteScan.indexOf(banks[bank], start, banks[bank].length, term);
+
+            if (i >= 0)
+            {
+                int found = bank * BANK_SIZE + i;
+                bytesRead += found - pos + 1;
+                return found;
+            }
+        }
+
+        bytesRead += length - pos;
+        return -1;
+    }
+
+    void countRead(long n)
+    {
+        // counts bytes that were read in place through bankView()
+        bytesRead += n;
+    }
+
+    ByteBuffer bankView(int pos)
+    {
+        // read-only view of the bank that contains pos, for scanning data without copying it
+        // it isn't counted as traffic, callers count what they took from it with countRead()
+        return ByteBuffer.wrap(banks[pos / BANK_SIZE]).asReadOnlyBuffer();
+    }
+
+    void write(byte b, int pos)
+    {
+        bytesWritten++;
+        writableBank(pos / BANK_SIZE)[pos % BANK_SIZE] = b;
+        markDirty(pos / BANK_SIZE, pos % BANK_SIZE, 1);
+    }
+
+    void write(byte[] b, int pos)
+    {
+        int n = 0;
+        bytesWritten += b.length;
+
+        while (n < b.length) // copy bank by bank
+        {
+            int bank = (pos + n) / BANK_SIZE;
+            int bankPos = (pos + n) % BANK_SIZE;
+            byte[] dest = writableBank(bank);
+            int len = Math.min(b.length - n, dest.length - bankPos);
+            System.arraycopy(b, n, dest, bankPos, len);
+            markDirty(bank, bankPos, len);
+            n += len;
+        }
+    }
+
+    void write(ByteBuffer buffer, int pos)
+    {
+        // writes the remaining bytes of buffer without altering its position
+        ByteBuffer src = buffer.duplicate();
+        int n = 0;
+        bytesWritten += src.remaining();
+
+        while (src.hasRemaining())
+        {
+            int bank = (pos + n) / BANK_SIZE;
+            int bankPos = (pos + n) % BANK_SIZE;
+            byte[] dest = writableBank(bank);
+            int len = Math.min(src.remaining(), dest.length - bankPos);
+            src.get(dest, bankPos, len);
+            markDirty(bank, bankPos, len);
+            n += len;
+        }
+    }
+
+    private byte[] writableBank(int bank)
+    {
+        if (!owned[bank]) // first write to a shared bank
+        {
+            banks[bank] = banks[bank].clone();
+            owned[bank] = true;
+        }
+
+        return banks[bank];
+    }
+
+    void writeTo(File file) throws IOException
+    {
+        ByteBuffer[] buffers = new ByteBuffer[banks.length];
+
+        for (int i = 0; i < banks.length; i++)
+        {
+            buffers[i] = ByteBuffer.wrap(banks[i]);
+        }
+
+        writeFile(file, buffers);
+    }
+
+    static void writeFile(File file, ByteBuffer... buffers) throws IOException
+    {
+        // writes the buffers to a temporary file next to the target and renames it over,
+        // so a crash never leaves a half-written file behind
+        long length = 0;
+
+        for (ByteBuffer buffer : buffers)
+        {
+            length += buffer.remaining();
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+
+        try
+        {
+            try (
+                    RandomAccessFile stream = new RandomAccessFile(tmp, "rw");
+                    FileChannel ch = stream.getChannel();)
+            {
+                long written = 0;
+
+                while (written < length)
+                {
+                    written += ch.write(buffers);
+                }
+
+                ch.force(true);
+            }
+
+            try
+            {
+                Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package engine;
 
-import java.nio.channels.FileChannel;
 import java.io.IOException;
 
 import static data.Constants.*;
@@ -8,11 +7,11 @@ import static engine.RomWriter.*;
 
 class RomPatcher
 {
-    private FileChannel ch = null;
+    private RomImage rom = null;
 
-    RomPatcher(FileChannel ch)
+    RomPatcher(RomImage rom)
     {
-        this.ch = ch;
+        this.rom = rom;
     }
 
     void updateTypeEnhanceItems() throws IOException
@@ -23,7 +22,7 @@ class RomPatcher
 
         for (int i = 0; i < OFFSET_TYPE_ENHANCING_ITEMS.length; i++)
         {
-            writeToRom(ch, (byte) 0x14, OFFSET_TYPE_ENHANCING_ITEMS[i]); // 20% boost
+            writeToRom(rom, (byte) 0x14, OFFSET_TYPE_ENHANCING_ITEMS[i]); // 20% boost
         }
     }
 
@@ -34,8 +33,8 @@ class RomPatcher
         // this patch increases the likelihood to 50% and 5% respectively
 
         // 55% percent that it holds an item
-        writeToRom(ch, (byte) 0x8D, OFFSET_WILD_ITEM_RATE[0]);
+        writeToRom(rom, (byte) 0x8D, OFFSET_WILD_ITEM_RATE[0]);
         // 9% percent that it holds the rarer item (0.55*0.09 ~= 0.05)
-        writeToRom(ch, (byte) 0x16, OFFSET_WILD_ITEM_RATE[1]);
+        writeToRom(rom, (byte) 0x16, OFFSET_WILD_ITEM_RATE[1]);
     }
 }
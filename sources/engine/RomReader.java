@@ -2,9 +2,9 @@ package engine;
 
 import static java.lang.Math.*;
 import java.util.ArrayList;
-import java.nio.channels.FileChannel;
-import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static data.Constants.*;
 import data.Route;
@@ -12,81 +12,42 @@ import data.Trainer;
 import data.PokemonGame;
 import data.Move;
 import data.Sprite;
+import util.ByteList;
 
 class RomReader
 {
-    private FileChannel ch = null;
+    private RomImage rom = null;
 
-    RomReader(FileChannel ch)
+    RomReader(RomImage rom)
     {
-        this.ch = ch;
+        this.rom = rom;
     }
 
-    static byte[] readFromRom(FileChannel ch, int pos, int length) throws IOException
+    static byte[] readFromRom(RomImage rom, int pos, int length) throws IOException
     {
-        ByteBuffer buffer = ByteBuffer.allocate(length);
-        ch.read(buffer, pos);
-        return buffer.array();
+        return rom.read(pos, length);
     }
 
-    static byte readByteFromRom(FileChannel ch, int pos) throws IOException
+    static byte readByteFromRom(RomImage rom, int pos) throws IOException
     {
-        ByteBuffer buffer = ByteBuffer.allocate(1);
-        ch.read(buffer, pos);
-        byte[] byteHolder = buffer.array();
-        return byteHolder[0];
+        return rom.readByte(pos);
     }
 
-    static byte[] readTextFromRom(FileChannel ch, int pos) throws IOException
+    static byte[] readTextFromRom(RomImage rom, int pos) throws IOException
     {
-        byte charRead;
-        int n = 0; // keep track number of loop
-        ArrayList<Byte> textList = new ArrayList<>();
-
-        while (true)
-        {
-            charRead = readByteFromRom(ch, pos + n);
-
-            if (charRead != (byte) 0x50) // if not a terminating byte
-            {
-                textList.add(charRead);
-            }
-            else
-            {
-                break;
-            }
-
-            n++;
-        }
-
-        Byte[] textOutObj = textList.toArray(new Byte[0]);
-        byte[] textOut = new byte[textOutObj.length]; // convert object into primitive
-        for (int i = 0; i < textOut.length; i++)
-        {
-            textOut[i] = textOutObj[i];
-        }
-
-        return textOut;
+        return readFromRom(rom, pos, lengthUntilByte(rom, pos, (byte) 0x50)); // text ends with 0x50
     }
 
-    static int lengthUntilByte(FileChannel ch, int pos, byte term) throws IOException
+    static int lengthUntilByte(RomImage rom, int pos, byte term) throws IOException
     {
-        byte byteRead;
-        int n = 0; // keep track number of loop
+        int end = rom.indexOf(pos, term);
 
-        while (true)
+        if (end < 0)
         {
-            byteRead = readByteFromRom(ch, pos + n);
-
-            if (byteRead == term) // if a terminating byte
-            {
-                break;
-            }
-
-            n++;
+            throw new IOException(String.format("No terminator 0x%02X after 0x%X.", term & 0xFF, pos));
         }
 
-        return n;
+        return end - pos;
     }
 
     Route[] readRomRoutes() throws IOException
@@ -104,7 +65,7 @@ class RomReader
             int lIndex = Route.getLandIndex(i); // index if land route (0) or water route (1)
 
             int pos = Route.convertIndexToOffset(i);
-            byte[] dataRead = readFromRom(ch, pos, N_WILD_SLOTS[lIndex] * 2);
+            byte[] dataRead = readFromRom(rom, pos, N_WILD_SLOTS[lIndex] * 2);
 
             byte[] poke = new byte[N_WILD_SLOTS[lIndex]];
             byte[] lvl = new byte[N_WILD_SLOTS[lIndex]];
@@ -130,17 +91,17 @@ class RomReader
         {
             int initPos = pos; // initial offset position
 
-            byte[] name = readTextFromRom(ch, pos);
+            byte[] name = readTextFromRom(rom, pos);
             pos += name.length + 1; // adjust the position
 
-            byte trnKind = readByteFromRom(ch, pos);
+            byte trnKind = readByteFromRom(rom, pos);
             pos++;
 
-            byte statExp = readByteFromRom(ch, pos);
+            byte statExp = readByteFromRom(rom, pos);
             pos++;
 
-            int sizeParty = lengthUntilByte(ch, pos, (byte) 0xFF);
-            byte[] dataRead = readFromRom(ch, pos, sizeParty);
+            int sizeParty = lengthUntilByte(rom, pos, (byte) 0xFF);
+            byte[] dataRead = readFromRom(rom, pos, sizeParty);
             byte[][] party;
 
             switch (trnKind)
@@ -216,8 +177,8 @@ class RomReader
 
         int thisOffset2 = OFFSET_POKEMON_2; // for keeping track of the offsets in the second set
 
-        ArrayList<Byte> futureEvos = new ArrayList<>(); // keep track of Pokemon after who have pre-evos
-        ArrayList<Byte> futureEvosIndex = new ArrayList<>(); // store the Pokémon index that evolve into the evos
+        ByteList futureEvos = new ByteList(); // keep track of Pokemon after who have pre-evos
+        ByteList futureEvosIndex = new ByteList(); // store the Pokémon index that evolve into the evos
 
         for (int i = 0; i < N_POKEMON; i++)
         {
@@ -238,23 +199,23 @@ class RomReader
             int pos = PokemonGame.convertIndexToOffset(i);
             pos++;
 
-            byte[] base = readFromRom(ch, pos, 6); // read base stats
+            byte[] base = readFromRom(rom, pos, 6); // read base stats
             pos += 6;
 
-            byte[] type = readFromRom(ch, pos, 2); // read types
+            byte[] type = readFromRom(rom, pos, 2); // read types
             pos += 2;
 
             byte[] misc = new byte[9];
 
-            byte[] misc1 = readFromRom(ch, pos, 5);
+            byte[] misc1 = readFromRom(rom, pos, 5);
             pos += 5 + 1; // 1 padding byte
-            misc[5] = readByteFromRom(ch, pos); // step cycles
+            misc[5] = readByteFromRom(rom, pos); // step cycles
             pos += 1 + 1; // 1 padding byte
-            byte gfx = readByteFromRom(ch, pos); // gfx
+            byte gfx = readByteFromRom(rom, pos); // gfx
             pos += 1 + 4; // 4 padding bytes
-            byte[] misc2 = readFromRom(ch, pos, 2); // growth rate and egg group
+            byte[] misc2 = readFromRom(rom, pos, 2); // growth rate and egg group
             pos += 2;
-            byte[] tmhm = readFromRom(ch, pos, 8);
+            byte[] tmhm = readFromRom(rom, pos, 8);
 
             System.arraycopy(misc1, 0, misc, 0, misc1.length);
             System.arraycopy(misc2, 0, misc, 6, misc2.length);
@@ -265,29 +226,27 @@ class RomReader
             /////////////////////////////////////
             pos = thisOffset2; // set position to second set
 
-            ArrayList<Byte[]> evoList = new ArrayList<>();
+            ArrayList<byte[]> evoList = new ArrayList<>();
 
-            int readLength = lengthUntilByte(ch, pos, (byte) 0x00);
-
-            if (readLength == 0) // no evolutions
+            if (readByteFromRom(rom, pos) == (byte) 0x00) // no evolutions
             {
-                Byte[] evoNull = new Byte[0];
+                byte[] evoNull = new byte[0];
                 evoList.add(evoNull);
             }
             else
             {
-                while (readByteFromRom(ch, pos) != (byte) 0x00) // read evolutions
+                while (readByteFromRom(rom, pos) != (byte) 0x00) // read evolutions
                 {
-                    Byte[] evo; // declare new evolution array
+                    byte[] evo; // declare new evolution array
 
-                    if (readByteFromRom(ch, pos) == 0x05) // Tyrogue evolution takes in 4 bytes
+                    if (readByteFromRom(rom, pos) == 0x05) // Tyrogue evolution takes in 4 bytes
                     {
-                        evo = convertByteArray(readFromRom(ch, pos, 4));
+                        evo = readFromRom(rom, pos, 4);
                         pos += 4;
                     }
                     else
                     {
-                        evo = convertByteArray(readFromRom(ch, pos, 3)); // all the rest takes in 3 bytes
+                        evo = readFromRom(rom, pos, 3); // all the rest takes in 3 bytes
                         pos += 3;
                     }
 
@@ -307,31 +266,21 @@ class RomReader
                 }
             }
 
-            byte[][] evoArray = new byte[evoList.size()][];
-
-            for (int j = 0; j < evoArray.length; j++)
-            {
-                evoArray[j] = convertByteArray(evoList.get(j));
-            }
+            byte[][] evoArray = evoList.toArray(new byte[0][]);
 
             pos++; // position for moves	
 
-            ArrayList<Byte[]> moveList = new ArrayList<>();
-
-            while (readByteFromRom(ch, pos) != (byte) 0x00) // read moves
-            {
-                Byte[] move = convertByteArray(readFromRom(ch, pos, 2)); // moves take 2 bytes
-                moveList.add(move); // append that move to the list
-                pos += 2; // adjust position for next move
-            }
-
-            byte[][] moveArray = new byte[moveList.size()][];
+            // neither the level nor the move of an entry can be 0x00, so the list ends at the first one
+            int movesLength = lengthUntilByte(rom, pos, (byte) 0x00);
+            byte[] movesRead = readFromRom(rom, pos, movesLength);
+            byte[][] moveArray = new byte[movesLength / 2][]; // moves take 2 bytes
 
             for (int j = 0; j < moveArray.length; j++)
             {
-                moveArray[j] = convertByteArray(moveList.get(j));
+                moveArray[j] = Arrays.copyOfRange(movesRead, 2 * j, 2 * j + 2);
             }
 
+            pos += movesLength;
             thisOffset2 = pos + 1; // setting the next offset
 
             mons[i] = new PokemonGame(i, i + 1, base, type, misc, gfx, tmhm, evoArray, moveArray);
@@ -350,28 +299,14 @@ class RomReader
             /////////////////////////////////////
 
             int ptrPos = OFFSET_POINTERS_2 + i * 2; // position of this Pokemon's egg moves pointer
-            byte[] ptr = readFromRom(ch, ptrPos, 2);
+            byte[] ptr = readFromRom(rom, ptrPos, 2);
             int pos = getOffset(ptr, OFFSET_POINTERS_2); // position for this egg moves
 
-            if (readByteFromRom(ch, pos) == (byte) 0xFF)
+            if (readByteFromRom(rom, pos) == (byte) 0xFF)
             {
                 continue; // don't process Pokemon with no egg moves
             }
-            ArrayList<Byte> eggMoveList = new ArrayList<>();
-
-            while (readByteFromRom(ch, pos) != (byte) 0xFF) // read moves
-            {
-                Byte move = readByteFromRom(ch, pos); // moves take 1 byte
-                eggMoveList.add(move); // append that move to the list
-                pos++; // adjust position for next move
-            }
-
-            byte[] eggMoveArray = new byte[eggMoveList.size()];
-
-            for (int j = 0; j < eggMoveArray.length; j++)
-            {
-                eggMoveArray[j] = eggMoveList.get(j);
-            }
+            byte[] eggMoveArray = readFromRom(rom, pos, lengthUntilByte(rom, pos, (byte) 0xFF)); // moves take 1 byte
 
             mons[i].setEggMoves(eggMoveArray);
             mons[i].setEggMovesCarry(eggMoveArray);
@@ -409,7 +344,7 @@ class RomReader
         for (int i = 0; i < N_MOVES; i++) // cycle all moves
         {
             int pos = Move.convertIndexToOffset(i);
-            byte[] dataRead = readFromRom(ch, pos, 7);
+            byte[] dataRead = readFromRom(rom, pos, 7);
             byte[] effect =
             {
                 dataRead[1], dataRead[6]
@@ -417,7 +352,7 @@ class RomReader
 
             moves[i] = new Move(i, dataRead[0], effect, dataRead[2], dataRead[3], dataRead[4], dataRead[5]);
 
-            byte[] name = readTextFromRom(ch, posNames);
+            byte[] name = readTextFromRom(rom, posNames);
             posNames += name.length + 1; // adjust the position
             moves[i].setName(name);
         }
@@ -432,7 +367,7 @@ class RomReader
         for (int i = 0; i < moveBytes.length; i++) // cycle all moves
         {
             int pos = OFFSET_TM_MOVES + i;
-            moveBytes[i] = readByteFromRom(ch, pos);
+            moveBytes[i] = readByteFromRom(rom, pos);
         }
 
         return moveBytes;
@@ -441,8 +376,8 @@ class RomReader
     byte[] readRomCritAnimations() throws IOException
     {
         byte[] critBytes;
-        int length = lengthUntilByte(ch, OFFSET_CRIT_MOVES, (byte) 0xFF);
-        critBytes = readFromRom(ch, OFFSET_CRIT_MOVES, length);
+        int length = lengthUntilByte(rom, OFFSET_CRIT_MOVES, (byte) 0xFF);
+        critBytes = readFromRom(rom, OFFSET_CRIT_MOVES, length);
 
         return critBytes;
     }
@@ -451,9 +386,9 @@ class RomReader
     {
         byte[] starterBytes = new byte[3];
 
-        starterBytes[0] = readByteFromRom(ch, OFFSET_STARTERS[0][0]);
-        starterBytes[1] = readByteFromRom(ch, OFFSET_STARTERS[1][0]);
-        starterBytes[2] = readByteFromRom(ch, OFFSET_STARTERS[2][0]);
+        starterBytes[0] = readByteFromRom(rom, OFFSET_STARTERS[0][0]);
+        starterBytes[1] = readByteFromRom(rom, OFFSET_STARTERS[1][0]);
+        starterBytes[2] = readByteFromRom(rom, OFFSET_STARTERS[2][0]);
 
         return starterBytes;
     }
@@ -461,38 +396,37 @@ class RomReader
     Sprite[] readRomSprites(boolean unownSprites) throws IOException
     {
         // if (unownSprites) get the sprites for Unown
+        // the pointers are read first, then all the pictures are measured and copied in parallel
 
         Sprite[] sprites = (unownSprites) ? new Sprite[N_UNOWN] : new Sprite[N_POKEMON];
         int ptrOffset = (unownSprites) ? OFFSET_SPRITE_POINTERS_U : OFFSET_SPRITE_POINTERS;
+        int[][] pos = new int[sprites.length][2];
+        int[] picPos = new int[2 * sprites.length]; // front and back of each sprite
 
         for (int i = 0; i < sprites.length; i++)
         {
-            byte[] ptr; // pointer to sprite
-            int[] pos = new int[2];
-            int length;
-
-            ptr = readFromRom(ch, ptrOffset + 6 * i, 3);
-            pos[0] = Sprite.pointerToOffset(ptr);
-            length = (!unownSprites && i == INDEX_UNOWN - 1) ? 0 : getPicSize(pos[0]);
-
-            byte[] front = readFromRom(ch, pos[0], length);
-
-            ptr = readFromRom(ch, ptrOffset + 6 * i + 3, 3);
-            pos[1] = Sprite.pointerToOffset(ptr);
-            length = (!unownSprites && i == INDEX_UNOWN - 1) ? 0 : getPicSize(pos[1]);
+            for (int j = 0; j < 2; j++)
+            {
+                byte[] ptr = readFromRom(rom, ptrOffset + 6 * i + 3 * j, 3); // pointer to sprite
+                pos[i][j] = Sprite.pointerToOffset(ptr);
+                picPos[2 * i + j] = (!unownSprites && i == INDEX_UNOWN - 1) ? -1 : pos[i][j];
+            }
+        }
 
-            byte[] back = readFromRom(ch, pos[1], length);
+        byte[][] pics = readPictures(picPos);
 
+        for (int i = 0; i < sprites.length; i++)
+        {
             byte dim;
             if (unownSprites)
             {
-                dim = readByteFromRom(ch, OFFSET_POKEMON_1 + 0x11 + (0x20 * (INDEX_UNOWN - 1))); // read only the relevant byte
+                dim = readByteFromRom(rom, OFFSET_POKEMON_1 + 0x11 + (0x20 * (INDEX_UNOWN - 1))); // read only the relevant byte
             }
             else
             {
-                dim = readByteFromRom(ch, OFFSET_POKEMON_1 + 0x11 + (0x20 * i)); // read only the relevant byte
+                dim = readByteFromRom(rom, OFFSET_POKEMON_1 + 0x11 + (0x20 * i)); // read only the relevant byte
             }
-            sprites[i] = new Sprite(front, back, dim, pos);
+            sprites[i] = new Sprite(pics[2 * i], pics[2 * i + 1], dim, pos[i]);
         }
 
         return sprites;
@@ -504,7 +438,7 @@ class RomReader
 
         for (int i = 0; i < dim.length; i++)
         {
-            dim[i] = readByteFromRom(ch, OFFSET_POKEMON_1 + 0x11 + (0x20 * i)); // read only the relevant byte
+            dim[i] = readByteFromRom(rom, OFFSET_POKEMON_1 + 0x11 + (0x20 * i)); // read only the relevant byte
         }
         return dim;
     }
@@ -513,26 +447,50 @@ class RomReader
     {
         Sprite[] sprites = new Sprite[N_TRAINER_SPRITES];
         int ptrOffset = OFFSET_TRAINER_SPRITE_POINTERS;
+        int[] picPos = new int[sprites.length];
 
         for (int i = 0; i < sprites.length; i++)
         {
-            byte[] ptr; // pointer to sprite
-            int[] pos = new int[2];
-            int length;
-
-            ptr = readFromRom(ch, ptrOffset + 3 * i, 3);
-            pos[0] = Sprite.pointerToOffset(ptr);
-            length = getPicSize(pos[0]);
-            byte[] front = readFromRom(ch, pos[0], length);
+            byte[] ptr = readFromRom(rom, ptrOffset + 3 * i, 3); // pointer to sprite
+            picPos[i] = Sprite.pointerToOffset(ptr);
+        }
 
-            pos[1] = 0;
+        byte[][] pics = readPictures(picPos);
 
-            sprites[i] = new Sprite(front, pos);
+        for (int i = 0; i < sprites.length; i++)
+        {
+            int[] pos =
+            {
+                picPos[i], 0
+            };
+            sprites[i] = new Sprite(pics[i], pos);
         }
 
         return sprites;
     }
 
+    private byte[][] readPictures(int[] picPos)
+    {
+        // reads the compressed pictures at each offset, an offset of -1 gives an empty picture
+        // the pictures are read in place from their banks, so their bytes are counted once here
+        ByteBuffer[] src = new ByteBuffer[picPos.length];
+        int[] bankPos = new int[picPos.length];
+
+        for (int i = 0; i < picPos.length; i++)
+        {
+            if (picPos[i] >= 0)
+            {
+                src[i] = rom.bankView(picPos[i]);
+                bankPos[i] = picPos[i] % RomImage.BANK_SIZE;
+            }
+        }
+
+        byte[][] pics = SpriteIngest.read(src, bankPos);
+        rom.countRead(SpriteIngest.totalSize(pics));
+
+        return pics;
+    }
+
     Sprite readRomEggSprite() throws IOException
     {
         Sprite sprite;
@@ -542,10 +500,10 @@ class RomReader
         int[] pos = new int[2];
         int length;
 
-        ptr = readFromRom(ch, ptrOffset, 3);
+        ptr = readFromRom(rom, ptrOffset, 3);
         pos[0] = Sprite.pointerToOffset(ptr);
         length = getPicSize(pos[0]);
-        byte[] front = readFromRom(ch, pos[0], length);
+        byte[] front = readFromRom(rom, pos[0], length);
 
         pos[1] = 0;
 
@@ -560,8 +518,8 @@ class RomReader
 
         for (int i = 0; i < pal.length; i++)
         {
-            pal[i][0] = readFromRom(ch, OFFSET_PAL + i * 8, 4); // regular
-            pal[i][1] = readFromRom(ch, OFFSET_PAL + i * 8 + 4, 4); // shiny
+            pal[i][0] = readFromRom(rom, OFFSET_PAL + i * 8, 4); // regular
+            pal[i][1] = readFromRom(rom, OFFSET_PAL + i * 8 + 4, 4); // shiny
         }
 
         return pal;
@@ -571,94 +529,15 @@ class RomReader
     {
         // returns the name of the nth Pokemon
         int pos = OFFSET_POKEMON_NAMES + NAME_LEN * n;
-        int len = min(lengthUntilByte(ch, pos, (byte) 0x50), 10);
+        int len = min(lengthUntilByte(rom, pos, (byte) 0x50), 10);
 
-        return readFromRom(ch, pos, len);
+        return readFromRom(rom, pos, len);
     }
 
-    int getPicSize(int pos) throws IOException
+    int getPicSize(int pos)
     {
         // gets size of lz compressed pics that starts at position pos in the ROM
-
-        int out = pos;
-        int jump = 0;
-        byte ptrPar; // pointer parameter
-
-        byte b = readByteFromRom(ch, out);
-
-        while (b != (byte) 0xFF)
-        {
-            switch (b & 0b111_00000)
-            {
-                case (0b000_00000): // command with n parameters
-                    byte bMask = (byte) 0b0001_1111;
-                    jump = (byteToValue((byte) (b & bMask)) + 1) + 1;
-                    break;
-                case (0b001_00000): // command with one parameter
-                    jump = 1 + 1;
-                    break;
-                case (0b010_00000): // command with two parameters
-                    jump = 2 + 1;
-                    break;
-                case (0b011_00000): // command with no parameters
-                    jump = 0 + 1;
-                    break;
-                case (0b100_00000): // commands with pointer parameters
-                case (0b101_00000):
-                case (0b110_00000):
-                    ptrPar = readByteFromRom(ch, out + 1);
-                    if ((ptrPar & 0b1000_0000) == 0b1000_0000) // 7-bit negative offset
-                    {
-                        jump = 1 + 1;
-                    }
-                    else // 15-bit positive offset
-                    {
-                        jump = 2 + 1;
-                    }
-                    break;
-                case (0b111_00000): // lz long
-                    byte[] c = readFromRom(ch, out, 2);
-                    switch (c[0] & 0b000_111_00)
-                    {
-                        case (0b000_000_00): // command with n parameters
-                            byte[] b2Mask = new byte[2];
-                            b2Mask[0] = (byte) 0b0000_0011;
-                            b2Mask[1] = (byte) 0b1111_1111;
-                            jump = (byteToValue((byte) (c[0] & b2Mask[0])) * 0x100 + byteToValue((byte) (c[1] & b2Mask[1])) + 1) + 2;
-                            break;
-                        case (0b000_001_00): // command with one parameter
-                            jump = 1 + 2;
-                            break;
-                        case (0b000_010_00): // command with two parameters
-                            jump = 2 + 2;
-                            break;
-                        case (0b000_011_00): // command with no parameters
-                            jump = 0 + 2;
-                            break;
-                        case (0b000_100_00): // commands with pointer parameters
-                        case (0b000_101_00):
-                        case (0b000_110_00):
-                            ptrPar = readByteFromRom(ch, out + 2);
-                            if ((ptrPar & 0b1000_0000) == 0b1000_0000) // 7-bit negative offset
-                            {
-                                jump = 1 + 2;
-                            }
-                            else // 15-bit positive offset
-                            {
-                                jump = 2 + 2;
-                            }
-                            break;
-                        default:
-                            break;
-                    }
-                    break;
-                default:
-                    break;
-            }
-
-            out += jump;
-            b = readByteFromRom(ch, out);
-        }
-        return (out - pos + 1);
+        // pictures never cross a bank boundary, so the commands are scanned in place in their bank
+        return LzCodec.size(rom.bankView(pos), pos % RomImage.BANK_SIZE);
     }
 }
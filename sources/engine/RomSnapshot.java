@@ -0,0 +1,284 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+
+import data.Move;
+import data.Route;
+import data.Sprite;
+import data.Trainer;
+
+class RomSnapshot
+{
+    // everything the randomizer reads out of the base ROM, parsed once
+    // the objects held here are never edited: every randomization asks for
+    // copy-on-write copies, which only allocate for the fields that get changed
+    // the parsed data is cached on disk keyed by the hash of the image, since most runs
+    // start from the same source ROM
+
+    private static final int CACHE_VERSION = 1; // increase whenever the cache layout changes
+
+    private final Move[] moves;
+    private final byte[] moveTMs; // TM, HM and move tutor moves
+    private final byte[] critAnims; // moves with animations linked to higher crit rates
+    private final Route[] routes;
+    private final Trainer[] trainers;
+    private final Sprite[] trainerSprites;
+    private final Sprite eggSprite;
+    private final byte[] starters;
+
+    RomSnapshot(RomReader romReader) throws IOException
+    {
+        this.moves = romReader.readRomMoves();
+        this.moveTMs = romReader.readRomTMs();
+        this.critAnims = romReader.readRomCritAnimations();
+        this.routes = romReader.readRomRoutes();
+        this.trainers = romReader.readRomTrainers();
+        this.trainerSprites = romReader.readRomTrainerSprites();
+        this.eggSprite = romReader.readRomEggSprite();
+        this.starters = romReader.readRomStarters();
+    }
+
+    private RomSnapshot(CacheFile.Reader in)
+    {
+        this.moves = new Move[in.readInt()];
+
+        for (int i = 0; i < moves.length; i++)
+        {
+            byte animIndex = in.readByte();
+            byte[] effect = in.readBytes();
+            byte basePower = in.readByte();
+            byte typeCat = in.readByte();
+            byte acc = in.readByte();
+            byte pP = in.readByte();
+
+            moves[i] = new Move(i, animIndex, effect, basePower, typeCat, acc, pP);
+            moves[i].setName(in.readBytes());
+        }
+
+        this.moveTMs = in.readBytes();
+        this.critAnims = in.readBytes();
+
+        this.routes = new Route[in.readInt()];
+
+        for (int i = 0; i < routes.length; i++)
+        {
+            int index = in.readInt();
+            byte[] poke = in.readBytes();
+            routes[i] = new Route(index, poke, in.readBytes());
+        }
+
+        this.trainers = new Trainer[in.readInt()];
+
+        for (int i = 0; i < trainers.length; i++)
+        {
+            int index = in.readInt();
+            int offset = in.readInt();
+            byte[] name = in.readBytes();
+            byte kindByte = in.readByte();
+            byte statExp = in.readByte();
+            trainers[i] = new Trainer(index, offset, name, kindByte, statExp, in.readBytesArray());
+        }
+
+        this.trainerSprites = new Sprite[in.readInt()];
+
+        for (int i = 0; i < trainerSprites.length; i++)
+        {
+            trainerSprites[i] = readSprite(in);
+        }
+
+        this.eggSprite = readSprite(in);
+        this.starters = in.readBytes();
+    }
+
+    static RomSnapshot load(RomImage rom, File fileCache) throws IOException
+    {
+        // reads the snapshot from the cache if it was built from this same image,
+        // otherwise parses the image and caches the result
+        byte[] key = rom.hash();
+        CacheFile.Reader in = CacheFile.load(fileCache, CACHE_VERSION, key);
+
+        if (in != null)
+        {
+            Log.info("Reading cached ROM data...");
+
+            try
+            {
+                return new RomSnapshot(in);
+            }
+            catch (RuntimeException e)
+            {
+                // the header matched but the data doesn't decode, parse the image and write the cache again
+                Log.info("Ignoring damaged ROM data cache: " + e);
+            }
+        }
+
+        RomSnapshot snapshot = new RomSnapshot(new RomReader(rom));
+
+        try
+        {
+            snapshot.writeCache(fileCache, key);
+        }
+        catch (IOException e)
+        {
+            // the ROM was read fine, it just has to be parsed again next time
+            Log.info("Couldn't write ROM data cache: " + e.getMessage());
+        }
+
+        return snapshot;
+    }
+
+    private void writeCache(File fileCache, byte[] key) throws IOException
+    {
+        CacheFile.Writer out = new CacheFile.Writer();
+
+        out.writeInt(moves.length);
+
+        for (Move move : moves)
+        {
+            out.writeByte(move.getAnimIndex());
+            out.writeBytes(move.getEffect());
+            out.writeByte(move.getBasePower());
+            out.writeByte(move.getTypeCat());
+            out.writeByte(move.getAcc());
+            out.writeByte(move.getPP());
+            out.writeBytes(move.getName());
+        }
+
+        out.writeBytes(moveTMs);
+        out.writeBytes(critAnims);
+
+        out.writeInt(routes.length);
+
+        for (Route route : routes)
+        {
+            byte[] poke = new byte[route.getTotalSlots()];
+            byte[] lvl = new byte[route.getTotalSlots()];
+
+            for (int i = 0; i < poke.length; i++)
+            {
+                poke[i] = route.getPokeByte(i);
+                lvl[i] = route.getLvl(i);
+            }
+
+            out.writeInt(route.getIndex());
+            out.writeBytes(poke);
+            out.writeBytes(lvl);
+        }
+
+        out.writeInt(trainers.length);
+
+        for (Trainer trainer : trainers)
+        {
+            byte[][] party = new byte[trainer.getPartySize()][];
+
+            for (int i = 0; i < party.length; i++)
+            {
+                party[i] = trainer.getPokeBytes(i);
+            }
+
+            out.writeInt(trainer.getIndex());
+            out.writeInt(trainer.getOffset());
+            out.writeBytes(trainer.getName());
+            out.writeByte(trainer.getKind().getByte());
+            out.writeByte(trainer.getStatExp());
+            out.writeBytesArray(party);
+        }
+
+        out.writeInt(trainerSprites.length);
+
+        for (Sprite sprite : trainerSprites)
+        {
+            writeSprite(out, sprite);
+        }
+
+        writeSprite(out, eggSprite);
+        out.writeBytes(starters);
+
+        out.save(fileCache, CACHE_VERSION, key);
+    }
+
+    private static Sprite readSprite(CacheFile.Reader in)
+    {
+        byte[] front = in.readBytes();
+        byte[] back = in.readBytes();
+        byte dim = in.readByte();
+        return new Sprite(front, back, dim, in.readInts());
+    }
+
+    private static void writeSprite(CacheFile.Writer out, Sprite sprite)
+    {
+        out.writeBytes(sprite.getFront());
+        out.writeBytes(sprite.getBack());
+        out.writeByte(sprite.getDim());
+        out.writeInts(sprite.getOffset());
+    }
+
+    Move[] copyMoves()
+    {
+        Move[] out = new Move[moves.length];
+
+        for (int i = 0; i < moves.length; i++)
+        {
+            out[i] = moves[i].copy();
+        }
+
+        return out;
+    }
+
+    byte[] getMoveTMs()
+    {
+        return moveTMs.clone();
+    }
+
+    byte[] getCritAnims()
+    {
+        return critAnims.clone();
+    }
+
+    Route[] copyRoutes()
+    {
+        Route[] out = new Route[routes.length];
+
+        for (int i = 0; i < routes.length; i++)
+        {
+            out[i] = routes[i].copy();
+        }
+
+        return out;
+    }
+
+    Trainer[] copyTrainers()
+    {
+        Trainer[] out = new Trainer[trainers.length];
+
+        for (int i = 0; i < trainers.length; i++)
+        {
+            out[i] = trainers[i].copy();
+        }
+
+        return out;
+    }
+
+    Sprite[] copyTrainerSprites()
+    {
+        Sprite[] out = new Sprite[trainerSprites.length];
+
+        for (int i = 0; i < trainerSprites.length; i++)
+        {
+            out[i] = trainerSprites[i].copy();
+        }
+
+        return out;
+    }
+
+    Sprite copyEggSprite()
+    {
+        return eggSprite.copy();
+    }
+
+    byte[] getStarters()
+    {
+        return starters.clone();
+    }
+}
@@ -1,6 +1,5 @@
 package engine;
 
-import java.nio.channels.FileChannel;
 import java.nio.ByteBuffer;
 import java.io.IOException;
 
@@ -11,42 +10,38 @@ import data.PokemonGame;
 import data.Move;
 import data.Sprite;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 class RomWriter
 {
-    private FileChannel ch = null;
+    private RomImage rom = null;
 
-    RomWriter(FileChannel ch)
+    RomWriter(RomImage rom)
     {
-        this.ch = ch;
+        this.rom = rom;
     }
 
-    static void writeToRom(FileChannel ch, byte b, int pos) throws IOException
+    static void writeToRom(RomImage rom, byte b, int pos) throws IOException
     {
-        byte[] bA = new byte[1];
-        bA[0] = b;
-        writeToRom(ch, bA, pos);
+        rom.write(b, pos);
     }
 
-    static void writeToRom(FileChannel ch, byte[] b, int pos) throws IOException
+    static void writeToRom(RomImage rom, byte[] b, int pos) throws IOException
     {
-        ByteBuffer buffer = ByteBuffer.allocate(b.length);
-        buffer.put(b);
-        buffer.flip();
-        ch.write(buffer, pos);
+        rom.write(b, pos);
     }
 
-    static void writeToRom(FileChannel ch, ByteBuffer buffer, int pos) throws IOException
+    static void writeToRom(RomImage rom, ByteBuffer buffer, int pos) throws IOException
     {
         buffer.flip();
-        ch.write(buffer, pos);
+        rom.write(buffer, pos);
         buffer.rewind();
         buffer.clear();
     }
 
-    void randomizeStarters(PokemonSorter monSorter, int starterKind) throws IOException
+    void randomizeStarters(PokemonSorter monSorter, int starterKind, SplittableRandom rand) throws IOException
     {
-        ArrayList<PokemonGame> starterList = monSorter.getRandomStarters(starterKind);
+        ArrayList<PokemonGame> starterList = monSorter.getRandomStarters(starterKind, rand);
         int[] intArray = starterList.stream()
                                     .mapToInt(PokemonGame::getIntIndex)
                                     .toArray();
@@ -57,7 +52,7 @@ class RomWriter
         {
             for (int pos : OFFSET_STARTERS[i])
             {
-                writeToRom(ch, str[i], pos);
+                writeToRom(rom, str[i], pos);
             }
         }
     }
@@ -72,7 +67,7 @@ class RomWriter
             b[2 * i + 1] = route.getPokeByte(i);
         }
 
-        writeToRom(ch, b, route.getOffset());
+        writeToRom(rom, b, route.getOffset());
     }
 
     void replaceAllRoutePokemon(Route[] routes) throws IOException
@@ -97,7 +92,7 @@ class RomWriter
             buffer.put(trainer.getPokeBytes(i));
         }
 
-        writeToRom(ch, buffer, pos);
+        writeToRom(rom, buffer, pos);
         //System.out.println(new String(convertBytesToText(trainer.getName())) + ": " + byteToValue(trainer.getStatExp()));
     }
 
@@ -114,12 +109,12 @@ class RomWriter
             bufferEmpty.put((byte) 0x00);
         }
 
-        writeToRom(ch, bufferEmpty, OFFSET_TRAINERS);
+        writeToRom(rom, bufferEmpty, OFFSET_TRAINERS);
 
         for (int i = 0; i < TRAINER_GROUPS.length; i++) // cycle trainer groups
         {
             // update pointer table
-            writeToRom(ch, getPointer(pos), ptrPos);
+            writeToRom(rom, getPointer(pos), ptrPos);
 
             ptrPos += 2;
 
@@ -135,7 +130,7 @@ class RomWriter
                 replaceTrainer(trainers[j], size, pos);
                 pos += size;
 
-                writeToRom(ch, (byte) 0xFF, pos);
+                writeToRom(rom, (byte) 0xFF, pos);
 
                 pos++;
             }
@@ -179,7 +174,7 @@ class RomWriter
             buffer1.put(misc[7]);
             buffer1.put(mons[i].getCompatibilitiesByte());
 
-            writeToRom(ch, buffer1, mons[i].getOffset1());
+            writeToRom(rom, buffer1, mons[i].getOffset1());
 
             /////////////////////////////////////
             // second set of data at OFFSET_POKEMON_2
@@ -207,10 +202,10 @@ class RomWriter
 
             bufferEvo.put((byte) 0x00); // move terminator
 
-            writeToRom(ch, bufferEvo, pos1);
+            writeToRom(rom, bufferEvo, pos1);
 
             // update pointer table
-            writeToRom(ch, getPointer(pos1), OFFSET_POINTERS_1 + 2 * i);
+            writeToRom(rom, getPointer(pos1), OFFSET_POINTERS_1 + 2 * i);
 
             pos1 += mons[i].getNBytes() + 2; // set position for the next entry
 
@@ -227,10 +222,10 @@ class RomWriter
                 bufferEgg.put(eggMoves);
                 bufferEgg.put((byte) 0xFF); // terminator
 
-                writeToRom(ch, bufferEgg, pos2);
+                writeToRom(rom, bufferEgg, pos2);
 
                 // update pointer table		
-                writeToRom(ch, getPointer(pos2), OFFSET_POINTERS_2 + 2 * i);
+                writeToRom(rom, getPointer(pos2), OFFSET_POINTERS_2 + 2 * i);
 
                 pos2 += eggMoves.length + 1; // set position for the next entry
             }
@@ -248,16 +243,16 @@ class RomWriter
                 nameWrite[j] = (byte) 0x50;
             }
 
-            writeToRom(ch, nameWrite, OFFSET_POKEMON_NAMES + 10 * i);
+            writeToRom(rom, nameWrite, OFFSET_POKEMON_NAMES + 10 * i);
 
             /////////////////////////////////////
             // icon
             /////////////////////////////////////
-            writeToRom(ch, mons[i].getIcon(), OFFSET_POKEMON_ICONS + i);
+            writeToRom(rom, mons[i].getIcon(), OFFSET_POKEMON_ICONS + i);
         }
 
         // Pokemon with no egg moves need an 0xFF byte terminator at the end of the egg move list to point to
-        writeToRom(ch, (byte) 0xFF, pos2); // pos2 is already the ending offset
+        writeToRom(rom, (byte) 0xFF, pos2); // pos2 is already the ending offset
 
         for (int i = 0; i < N_POKEMON; i++)
         {
@@ -267,7 +262,7 @@ class RomWriter
             {
                 continue; // skip
             }
-            writeToRom(ch, getPointer(pos2), OFFSET_POINTERS_2 + 2 * i);
+            writeToRom(rom, getPointer(pos2), OFFSET_POINTERS_2 + 2 * i);
         }
     }
 
@@ -284,12 +279,12 @@ class RomWriter
         b[5] = move.getPP();
         b[6] = effect[1];
 
-        writeToRom(ch, b, move.getOffset());
+        writeToRom(rom, b, move.getOffset());
     }
 
     void replaceLearnableMove(Move move, int n) throws IOException
     {
-        writeToRom(ch, move.getIndex(), OFFSET_TM_MOVES + n);
+        writeToRom(rom, move.getIndex(), OFFSET_TM_MOVES + n);
     }
 
     void replaceAllMoves(Move[] moves, Move[] movesTM) throws IOException
@@ -309,17 +304,17 @@ class RomWriter
     {
         int[] pos = sprite.getOffset();
 
-        writeToRom(ch, sprite.getFront(), pos[0]);
-        writeToRom(ch, sprite.getBack(), pos[1]);
+        writeToRom(rom, sprite.getFront(), pos[0]);
+        writeToRom(rom, sprite.getBack(), pos[1]);
 
         // update the sprite dimensions
         if (isUnown)
         {
-            writeToRom(ch, sprite.getDim(), OFFSET_POKEMON_1 + 0x11 + (0x20 * (INDEX_UNOWN - 1)));
+            writeToRom(rom, sprite.getDim(), OFFSET_POKEMON_1 + 0x11 + (0x20 * (INDEX_UNOWN - 1)));
         }
         else
         {
-            writeToRom(ch, sprite.getDim(), OFFSET_POKEMON_1 + 0x11 + (0x20 * n));
+            writeToRom(rom, sprite.getDim(), OFFSET_POKEMON_1 + 0x11 + (0x20 * n));
         }
 
         // update pointer
@@ -329,13 +324,13 @@ class RomWriter
 
             if (isUnown) // if it's the Unown slot
             {
-                writeToRom(ch, ptrs[0], OFFSET_SPRITE_POINTERS_U + 6 * n);
-                writeToRom(ch, ptrs[1], OFFSET_SPRITE_POINTERS_U + 6 * n + 3);
+                writeToRom(rom, ptrs[0], OFFSET_SPRITE_POINTERS_U + 6 * n);
+                writeToRom(rom, ptrs[1], OFFSET_SPRITE_POINTERS_U + 6 * n + 3);
             }
             else
             {
-                writeToRom(ch, ptrs[0], OFFSET_SPRITE_POINTERS + 6 * n);
-                writeToRom(ch, ptrs[1], OFFSET_SPRITE_POINTERS + 6 * n + 3);
+                writeToRom(rom, ptrs[0], OFFSET_SPRITE_POINTERS + 6 * n);
+                writeToRom(rom, ptrs[1], OFFSET_SPRITE_POINTERS + 6 * n + 3);
             }
         }
 
@@ -345,26 +340,26 @@ class RomWriter
             {
                 (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF
             };
-            writeToRom(ch, ptr, OFFSET_SPRITE_POINTERS + 6 * n);
+            writeToRom(rom, ptr, OFFSET_SPRITE_POINTERS + 6 * n);
         }
     }
 
     void replaceTrainerSprite(Sprite sprite, int n) throws IOException
     {
         int[] pos = sprite.getOffset();
-        writeToRom(ch, sprite.getFront(), pos[0]);
+        writeToRom(rom, sprite.getFront(), pos[0]);
 
         byte[][] ptrs = sprite.getSpritePointer();
-        writeToRom(ch, ptrs[0], OFFSET_TRAINER_SPRITE_POINTERS + 3 * n);
+        writeToRom(rom, ptrs[0], OFFSET_TRAINER_SPRITE_POINTERS + 3 * n);
     }
 
     void replaceEggSprite(Sprite sprite) throws IOException
     {
         int[] pos = sprite.getOffset();
-        writeToRom(ch, sprite.getFront(), pos[0]);
+        writeToRom(rom, sprite.getFront(), pos[0]);
 
         byte[][] ptrs = sprite.getSpritePointer();
-        writeToRom(ch, ptrs[0], OFFSET_SPRITE_POINTER_EGG);
+        writeToRom(rom, ptrs[0], OFFSET_SPRITE_POINTER_EGG);
     }
 
     void replaceAllSprites(Sprite[][] sprites, Sprite[] spritesTrn, Sprite spriteEgg, byte[][][] pal) throws IOException
@@ -378,7 +373,7 @@ class RomWriter
                 bufferEmpty.put((byte) 0x00);
             }
 
-            writeToRom(ch, bufferEmpty, OFFSET_SPRITE_POINTERS + 0x4000 * i);
+            writeToRom(rom, bufferEmpty, OFFSET_SPRITE_POINTERS + 0x4000 * i);
         }
 
         for (int i = 0; i < sprites.length; i++)
@@ -402,16 +397,16 @@ class RomWriter
         {
             (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF
         };
-        writeToRom(ch, fill, OFFSET_SPRITE_POINTERS + 6 * N_POKEMON);
-        writeToRom(ch, fill, OFFSET_SPRITE_POINTERS + 6 * N_POKEMON + 6);
+        writeToRom(rom, fill, OFFSET_SPRITE_POINTERS + 6 * N_POKEMON);
+        writeToRom(rom, fill, OFFSET_SPRITE_POINTERS + 6 * N_POKEMON + 6);
 
         replaceEggSprite(spriteEgg);
 
         // overwrite palettes
         for (int i = 0; i < pal.length; i++)
         {
-            writeToRom(ch, pal[i][0], OFFSET_PAL + i * 8);
-            writeToRom(ch, pal[i][1], OFFSET_PAL + i * 8 + 4);
+            writeToRom(rom, pal[i][0], OFFSET_PAL + i * 8);
+            writeToRom(rom, pal[i][1], OFFSET_PAL + i * 8 + 4);
         }
     }
 }
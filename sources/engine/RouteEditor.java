@@ -1,22 +1,27 @@
 package engine;
 
-import java.io.IOException;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
 import data.Route;
 import data.PokemonGame;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import engine.RandomStreams.Stage;
 
 class RouteEditor
 {
     private Route[] routes;
     private PokemonGame[] mons;
+    private SplittableRandom rand;
 
-    RouteEditor(RomReader romReader, PokemonGame[] mons) throws IOException
+    RouteEditor(RomSnapshot snapshot, PokemonGame[] mons, SplittableRandom rand)
     {
-        this.routes = romReader.readRomRoutes();
+        this.routes = snapshot.copyRoutes();
         this.mons = mons;
+        this.rand = rand;
     }
 
     void randomizePokemon(PokemonSorter monSorter, boolean withSimilar, boolean noLeg)
@@ -27,7 +32,7 @@ class RouteEditor
             {
                 for (int j = 0; j < routes[i].getTotalSlots(); j++)
                 {
-                    routes[i].setPoke(j, (byte) round(random() * 0xFB));
+                    routes[i].setPoke(j, (byte) rand.nextInt(0xFB + 1));
                 }
             }
         }
@@ -38,70 +43,74 @@ class RouteEditor
                 for (int j = 0; j < routes[i].getTotalSlots(); j++)
                 {
                     PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeByte(j), mons);
-                    routes[i].setPoke(j, monSorter.getSameTier(initialMon, Type.NO_TYPE, noLeg, false).getIntIndex());
+                    routes[i].setPoke(j, monSorter.getSameTier(initialMon, Type.NO_TYPE, noLeg, false, rand).getIntIndex());
                 }
             }
         }
     }
 
-    void randomizeSlotPokemon(PokemonSorter monSorter, boolean withSimilar, boolean noLeg, boolean typeRoutes)
+    void randomizeSlotPokemon(PokemonSorter monSorter, boolean withSimilar, boolean noLeg, boolean typeRoutes, RandomStreams random, boolean parallel)
+    {
+        // routes don't depend on each other, so each one draws from its own stream, derived from the seed and its index,
+        // and they give the same Pokemon whether they are randomized in order or in parallel
+        int nRoutes = Route.indexBreaks[Route.indexBreaks.length - 1];
+
+        IntStream indexes = IntStream.range(0, nRoutes);
+        (parallel ? indexes.parallel() : indexes).forEach(i -> randomizeSlots(i, monSorter, withSimilar, noLeg, typeRoutes, random.stream(Stage.ROUTES, i)));
+    }
+
+    private void randomizeSlots(int i, PokemonSorter monSorter, boolean withSimilar, boolean noLeg, boolean typeRoutes, SplittableRandom rand)
     {
         if (!withSimilar)
         {
-            for (int i = 0; i < Route.indexBreaks[Route.indexBreaks.length - 1]; i++)
+            if ((typeRoutes) && (routes[i].getLandIndex() == 1)) // is a water route
             {
-                if ((typeRoutes) && (routes[i].getLandIndex() == 1)) // is a water route
+                ArrayList<PokemonGame> waterArray = monSorter.getPokemonOfType(Type.WATER);
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    ArrayList<PokemonGame> waterArray = monSorter.getPokemonOfType(Type.WATER);
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        routes[i].setSlot(j, waterArray.get((int) floor(random() * waterArray.size())).getIntIndex());
-                    }
+                    routes[i].setSlot(j, waterArray.get(rand.nextInt(waterArray.size())).getIntIndex());
                 }
-                else
+            }
+            else
+            {
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        routes[i].setSlot(j, (byte) round(random() * 0xFB));
-                    }
+                    routes[i].setSlot(j, (byte) rand.nextInt(0xFB + 1));
                 }
             }
         }
         else
         {
-            for (int i = 0; i < Route.indexBreaks[Route.indexBreaks.length - 1]; i++)
+            if ((typeRoutes) && (routes[i].getLandIndex() == 1)) // is a water route
             {
-                if ((typeRoutes) && (routes[i].getLandIndex() == 1)) // is a water route
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
-                        routes[i].setSlot(j, monSorter.getSameTier(initialMon, Type.WATER, noLeg, false).getIntIndex());
-                    }
+                    PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
+                    routes[i].setSlot(j, monSorter.getSameTier(initialMon, Type.WATER, noLeg, false, rand).getIntIndex());
                 }
-                else if ((typeRoutes) && (arrayContains(INDEX_ROUTE_SPECIFIC_TYPES[0], i))) // for Ice Path
+            }
+            else if ((typeRoutes) && (arrayContains(INDEX_ROUTE_SPECIFIC_TYPES[0], i))) // for Ice Path
+            {
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
-                        routes[i].setSlot(j, monSorter.getSameTier(initialMon, ROUTE_TYPES[0], noLeg, false).getIntIndex());
-                    }
+                    PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
+                    routes[i].setSlot(j, monSorter.getSameTier(initialMon, ROUTE_TYPES[0], noLeg, false, rand).getIntIndex());
                 }
-                else if ((typeRoutes) && (arrayContains(INDEX_ROUTE_SPECIFIC_TYPES[1], i))) // for Victory Road
+            }
+            else if ((typeRoutes) && (arrayContains(INDEX_ROUTE_SPECIFIC_TYPES[1], i))) // for Victory Road
+            {
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
-                        routes[i].setSlot(j, monSorter.getSameTier(initialMon, ROUTE_TYPES[1], noLeg, false).getIntIndex());
-                    }
+                    PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
+                    routes[i].setSlot(j, monSorter.getSameTier(initialMon, ROUTE_TYPES[1], noLeg, false, rand).getIntIndex());
                 }
-                else
+            }
+            else
+            {
+                for (int j = 0; j < routes[i].getNumberSpecies(); j++)
                 {
-                    for (int j = 0; j < routes[i].getNumberSpecies(); j++)
-                    {
-                        PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
-                        routes[i].setSlot(j, monSorter.getSameTier(initialMon, Type.NO_TYPE, noLeg, false).getIntIndex());
-                    }
+                    PokemonGame initialMon = PokemonEditor.getPokemonFromByte(routes[i].getPokeSpeciesByte(j), mons);
+                    routes[i].setSlot(j, monSorter.getSameTier(initialMon, Type.NO_TYPE, noLeg, false, rand).getIntIndex());
                 }
             }
         }
@@ -2,7 +2,7 @@ package engine;
 
 import static java.lang.Math.*;
 import java.util.ArrayList;
-import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
 import java.io.IOException;
 
 import static data.Constants.*;
@@ -15,7 +15,8 @@ import data.PokemonGame;
 
 class SavePatcher
 {
-    private FileChannel ch = null;
+    private RomImage sav = null;
+    private SplittableRandom rand;
 
     private static final int[] OFFSET_SAVE_TEAM_SPECIES =
     {
@@ -27,9 +28,10 @@ class SavePatcher
     };
     private static final int LENGTH_POKEMON_DATA = 0x30;
 
-    SavePatcher(FileChannel ch)
+    SavePatcher(RomImage sav, SplittableRandom rand)
     {
-        this.ch = ch;
+        this.sav = sav;
+        this.rand = rand;
     }
 
     private class SaveMon
@@ -55,26 +57,21 @@ class SavePatcher
         // generates a nMons-party team with specified level
         PokemonGame[] monTeam = new PokemonGame[nMons];
         int[] monTeamInt = new int[nMons];
+        int[] monTiers = new int[nMons];
 
-        // create dummy Pokemon team with random tiers
+        // pick random tiers for the team
         for (int i = 0; i < nMons; i++)
         {
-            byte[] tmhmByte = new byte[N_TM + N_HM + N_MOVE_TUTOR];
-            for (int j = 0; j < tmhmByte.length; j++)
-            {
-                tmhmByte[j] = (byte) 0x00; // placeholder tmhm bytes
-            }
-            monTeam[i] = new PokemonGame(0, (byte) 0xFF, new byte[0], new byte[0], new byte[0], (byte) 0x00, tmhmByte, new byte[0][0], new byte[0][0]);
-            monTeam[i].setOldTier((int) floor(random() * (N_TIERS - 1)));
+            monTiers[i] = rand.nextInt(N_TIERS - 1);
         }
 
-        ArrayList<Pokemon> prevMonList = new ArrayList<>(); // keep track of previous Pokemon in team
+        TypeCoverage prevMonTypes = new TypeCoverage(); // keep track of the types of previous Pokemon in team
 
         for (int i = 0; i < nMons; i++) // cycle party
         {
-            Pokemon chosenMon = monSorter.getSameTier(monTeam[i], false, false, true, prevMonList);
+            Pokemon chosenMon = monSorter.getSameTier(monTiers[i], false, false, true, prevMonTypes, rand);
             monTeamInt[i] = chosenMon.getIntIndex();
-            prevMonList.add(chosenMon);
+            prevMonTypes.add(chosenMon);
         }
 
         int[] lvlL = new int[nMons];
@@ -83,14 +80,14 @@ class SavePatcher
             lvlL[i] = lvl;
         }
         
-        monTeamInt = monSorter.evolveTeam(monTeamInt, lvlL);
+        monTeamInt = monSorter.evolveTeam(monTeamInt, lvlL, rand);
         
         for (int i = 0; i < monTeam.length; i++)
             monTeam[i] = mons[monTeamInt[i]-1];
 
         // apply moveset
         byte[][] moves = new byte[nMons][4];
-        ArrayList<ArrayList<Move>> movesets = teamCust.customize(monTeam, lvlL, mons);
+        ArrayList<ArrayList<Move>> movesets = teamCust.forStream(rand).customize(monTeam, lvlL, mons);
         
         for (int i = 0; i < moves.length; i++)
             for (int j = 0; j < moves[i].length; j++)
@@ -115,32 +112,32 @@ class SavePatcher
             {
                 // update species list
                 int posSpecies = OFFSET_SAVE_TEAM_SPECIES[i] + j;
-                writeToRom(ch, savMon[j].index, posSpecies);
+                writeToRom(sav, savMon[j].index, posSpecies);
 
                 // update party
                 int pos = OFFSET_SAVE_TEAM[i] + LENGTH_POKEMON_DATA * j;
-                writeToRom(ch, savMon[j].index, pos);
-                writeToRom(ch, savMon[j].item, pos + 0x01);
-                writeToRom(ch, savMon[j].moves, pos + 0x02);
+                writeToRom(sav, savMon[j].index, pos);
+                writeToRom(sav, savMon[j].item, pos + 0x01);
+                writeToRom(sav, savMon[j].moves, pos + 0x02);
 
                 byte[] expByte = new byte[3];
                 expByte[0] = (byte) ((savMon[j].totalExp & 0xFF0000) >> 16);
                 expByte[1] = (byte) ((savMon[j].totalExp & 0x00FF00) >> 8);
                 expByte[2] = (byte) ((savMon[j].totalExp & 0x0000FF));
-                writeToRom(ch, expByte, pos + 0x08);
+                writeToRom(sav, expByte, pos + 0x08);
 
                 int statExp = 25600;
                 byte[] statByte = new byte[2];
                 statByte[0] = (byte) ((statExp & 0xFF00) >> 8);
                 statByte[1] = (byte) ((statExp & 0x00FF));
 
-                writeToRom(ch, statByte, pos + 0x0B); // HP Stat Exp
-                writeToRom(ch, statByte, pos + 0x0B + 1); // Attack Stat Exp
-                writeToRom(ch, statByte, pos + 0x0B + 2); // Defense Stat Exp
-                writeToRom(ch, statByte, pos + 0x0B + 3); // Speed Stat Exp
-                writeToRom(ch, statByte, pos + 0x0B + 4); // Special Stat Exp
+                writeToRom(sav, statByte, pos + 0x0B); // HP Stat Exp
+                writeToRom(sav, statByte, pos + 0x0B + 1); // Attack Stat Exp
+                writeToRom(sav, statByte, pos + 0x0B + 2); // Defense Stat Exp
+                writeToRom(sav, statByte, pos + 0x0B + 3); // Speed Stat Exp
+                writeToRom(sav, statByte, pos + 0x0B + 4); // Special Stat Exp
 
-                writeToRom(ch, valueToByte(savMon[j].lvl), pos + 0x1F); // level
+                writeToRom(sav, valueToByte(savMon[j].lvl), pos + 0x1F); // level
             }
         }
     }
@@ -172,14 +169,14 @@ class SavePatcher
             pos = initPos[i];
             while (pos <= endPos[i])
             {
-                sum[i] += byteToValue(readByteFromRom(ch, pos));
+                sum[i] += byteToValue(readByteFromRom(sav, pos));
                 pos++;
             }
 
             byte[] b = new byte[2];
             b[0] = (byte) ((sum[i] & 0x00FF));
             b[1] = (byte) ((sum[i] & 0xFF00) >> 8);
-            writeToRom(ch, b, chsumPos[i]);
+            writeToRom(sav, b, chsumPos[i]);
         }
     }
 }
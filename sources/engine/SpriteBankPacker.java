@@ -0,0 +1,120 @@
+package engine;
+
+import java.util.Arrays;
+
+import static data.Constants.*;
+
+class SpriteBankPacker
+{
+    // packs compressed pictures into the sprite banks, first-fit decreasing:
+    // pictures are placed from the largest to the smallest, each in the first bank that still has room
+    // a picture can't cross a bank boundary, since its pointer only holds a bank and an address inside it
+    // the start of some banks is taken by pointer tables, those bytes are never given out:
+    //     0x120000 regular pointer table and egg pointer (up to OFFSET_SPRITES)
+    //     0x124000 Unown pointer table
+    //     0x128000 trainer pointer table
+
+    private static final int BANK_SIZE = RomImage.BANK_SIZE;
+
+    private final int[] next = new int[N_SPRITE_BANKS]; // first free offset of each bank
+    private final int[] free = new int[N_SPRITE_BANKS]; // free bytes left in each bank
+    private final int[] used = new int[N_SPRITE_BANKS]; // bytes given to pictures in each bank
+
+    SpriteBankPacker()
+    {
+        for (int i = 0; i < N_SPRITE_BANKS; i++)
+        {
+            next[i] = OFFSET_SPRITE_POINTERS + i * BANK_SIZE;
+            free[i] = BANK_SIZE;
+        }
+
+        reserve(OFFSET_SPRITE_POINTERS, OFFSET_SPRITES - OFFSET_SPRITE_POINTERS);
+        reserve(OFFSET_SPRITE_POINTERS_U, 6 * N_UNOWN);
+        reserve(OFFSET_TRAINER_SPRITE_POINTERS, 3 * N_TRAINER_SPRITES);
+    }
+
+    private void reserve(int pos, int len)
+    {
+        // reserves len bytes at the start of the bank at pos
+        int bank = (pos - OFFSET_SPRITE_POINTERS) / BANK_SIZE;
+        next[bank] += len;
+        free[bank] -= len;
+    }
+
+    int[] pack(int[] sizes)
+    {
+        // returns the offset of each picture, in the same order as sizes
+        // sorting size and index together in a long keeps the order deterministic on ties
+        int n = sizes.length;
+        long[] order = new long[n];
+        int[] out = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = ((long) sizes[i] << 32) | (n - 1 - i); // equal sizes keep their original order
+        }
+
+        Arrays.sort(order);
+
+        for (int k = n - 1; k >= 0; k--) // largest first
+        {
+            int i = n - 1 - (int) order[k];
+            int bank = 0;
+
+            while (bank < N_SPRITE_BANKS && free[bank] < sizes[i])
+            {
+                bank++;
+            }
+
+            if (bank == N_SPRITE_BANKS)
+            {
+                throw new IllegalStateException("Sprites don't fit in " + N_SPRITE_BANKS + " banks: no room for a picture of " + sizes[i] + " bytes.");
+            }
+
+            out[i] = next[bank];
+            next[bank] += sizes[i];
+            free[bank] -= sizes[i];
+            used[bank] += sizes[i];
+        }
+
+        return out;
+    }
+
+    int getBytesUsed()
+    {
+        int n = 0;
+
+        for (int u : used)
+        {
+            n += u;
+        }
+
+        return n;
+    }
+
+    int getBytesFree()
+    {
+        int n = 0;
+
+        for (int f : free)
+        {
+            n += f;
+        }
+
+        return n;
+    }
+
+    String describe()
+    {
+        // utilization of each bank, counting the free bytes after the pointer tables only
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < N_SPRITE_BANKS; i++)
+        {
+            int capacity = used[i] + free[i];
+            sb.append(String.format("Bank 0x%06X: %5d / %5d bytes (%5.1f%%)%n", OFFSET_SPRITE_POINTERS + i * BANK_SIZE, used[i], capacity, 100.0 * used[i] / capacity));
+        }
+
+        return sb.toString();
+    }
+}
@@ -1,8 +1,6 @@
 package engine;
 
-import java.util.ArrayList;
 import java.io.IOException;
-import static java.lang.Math.*;
 
 import static data.Constants.*;
 import data.Sprite;
@@ -23,17 +21,17 @@ class SpriteEditor
         this.pal = romReader.readRomPalettes();
     }
 
-    SpriteEditor(PokedexRandomizer dexRand, RomReader romReader) throws IOException
+    SpriteEditor(PokedexRandomizer dexRand, RomSnapshot snapshot)
     {
         this.sprites = dexRand.getAllSprites();
-        this.spritesTrn = romReader.readRomTrainerSprites();
-        this.spriteEgg = romReader.readRomEggSprite();
+        this.spritesTrn = snapshot.copyTrainerSprites();
+        this.spriteEgg = snapshot.copyEggSprite();
         this.pal = dexRand.getAllPalettes();
     }
 
     void minOffset()
     {
-        int[] min = sprites[0][0].getOffset();
+        int[] min = sprites[0][0].getOffset().clone();
 
         for (Sprite[] sprite : sprites) // for each sprite group (regular/Unown)
         {
@@ -51,13 +49,15 @@ class SpriteEditor
             }
         }
 
-        System.out.println(String.format("0x%06X", min[0]));
-        System.out.println(String.format("0x%06X", min[1]));
+        if (Log.enabled(Log.Level.DEBUG))
+        {
+            Log.debug(String.format("0x%06X\n0x%06X", min[0], min[1]));
+        }
     }
 
     void maxOffset()
     {
-        int[] max = sprites[0][0].getOffset();
+        int[] max = sprites[0][0].getOffset().clone();
 
         for (int i = 0; i < sprites.length; i++)
         {
@@ -80,8 +80,10 @@ class SpriteEditor
             }
         }
 
-        System.out.println(String.format("0x%06X", max[0]));
-        System.out.println(String.format("0x%06X", max[1]));
+        if (Log.enabled(Log.Level.DEBUG))
+        {
+            Log.debug(String.format("0x%06X\n0x%06X", max[0], max[1]));
+        }
     }
 
     Sprite[][] getAllSprites()
@@ -106,229 +108,77 @@ class SpriteEditor
 
     void packSprites()
     {
-        // packs the sprites in the available banks
-        // there is space after the pointer table of regular sprites 
-        // and right after the Unown pointer table and trainer tables
-        // until the end of the 0x164000 bank (0x167FFF)
+        // packs the sprites in the N_SPRITE_BANKS banks from OFFSET_SPRITE_POINTERS,
+        // around the pointer tables at the start of some of them (see SpriteBankPacker)
+        // sizes are listed front then back for each Pokemon sprite, then trainers, then the egg
 
-        int pos = OFFSET_SPRITES; // keep track of position
-        int minSize = 0xFFFF; // record the minimum size of all sprites
-        int totalSpr = (sprites[0].length + sprites[1].length) * 2 + spritesTrn.length + 1; // add up all the sprites
-        ArrayList<Byte[]> sprList = new ArrayList<>(); // initialize the sprite array list
-        ArrayList<Integer> indexList = new ArrayList<>(); // store the indexes of each sprite
-        // indexes transition linearly from sprites[0] to sprites[1]
-        ArrayList<Boolean> isFrontList = new ArrayList<>(); // stores booleans of whether it's front or back sprite
+        int nMon = sprites[0].length + sprites[1].length;
+        int[] sizes = new int[nMon * 2 + spritesTrn.length + 1];
+        int k = 0;
 
-        // get all the sprites in the list
-        // Pokemon sprites
-        for (int i = 0; i < sprites.length; i++)
+        for (Sprite[] group : sprites)
         {
-            for (int j = 0; j < sprites[i].length; j++)
+            for (Sprite spr : group)
             {
-                byte[] sprHold = sprites[i][j].getFront();
-                sprList.add(convertByteArray(sprHold));
-                indexList.add(i * sprites[0].length + j);
-                isFrontList.add(true);
-                if ((sprHold.length < minSize) || (sprHold.length > 0))
-                {
-                    minSize = sprHold.length;
-                }
-
-                sprHold = sprites[i][j].getBack();
-                sprList.add(convertByteArray(sprHold));
-                indexList.add(i * sprites[0].length + j);
-                isFrontList.add(false);
-                if ((sprHold.length < minSize) || (sprHold.length > 0))
-                {
-                    minSize = sprHold.length;
-                }
+                sizes[k++] = spr.getFront().length;
+                sizes[k++] = spr.getBack().length;
             }
         }
 
-        // Trainer sprites
-        for (int i = 0; i < spritesTrn.length; i++)
+        for (Sprite spr : spritesTrn)
         {
-            byte[] sprHold = spritesTrn[i].getFront();
-            sprList.add(convertByteArray(sprHold));
-            indexList.add(sprites[0].length + sprites[1].length + i);
-            isFrontList.add(true);
-            if (sprHold.length < minSize)
-            {
-                minSize = sprHold.length;
-            }
+            sizes[k++] = spr.getFront().length;
         }
 
-        // Egg sprite
-        for (int i = 0; i < 1; i++)
+        sizes[k] = spriteEgg.getFront().length;
+
+        SpriteBankPacker packer = new SpriteBankPacker();
+        int[] offsets = packer.pack(sizes);
+        k = 0;
+
+        for (Sprite[] group : sprites)
         {
-            byte[] sprHold = spriteEgg.getFront();
-            sprList.add(convertByteArray(sprHold));
-            indexList.add(sprites[0].length + sprites[1].length + spritesTrn.length);
-            isFrontList.add(true);
-            if (sprHold.length < minSize)
+            for (Sprite spr : group)
             {
-                minSize = sprHold.length;
+                spr.setOffset(0, offsets[k++]);
+                spr.setOffset(1, offsets[k++]);
             }
         }
 
-        while (sprList.size() > 0) // while there are sprites to add to the banks
+        for (Sprite spr : spritesTrn)
         {
-            byte[] thisSpr = convertByteArray(sprList.get(0)); // get first sprite on the list
-            int thisIndex = indexList.get(0); // get associated sprite index
-            boolean isFront = isFrontList.get(0);
-
-            int[] metaData = getMetaData(thisIndex);
-            int offsetIndex = (isFront) ? 0 : 1;
-
-            if (floor(pos / 0x4000) == floor((pos + thisSpr.length) / 0x4000)) // if sprite length doesn't change banks
-            {
-                switch (metaData[0])
-                {
-                    case 0:
-                    case 1:
-                        sprites[metaData[0]][metaData[1]].setOffset(offsetIndex, pos);
-                        break;
-                    case 2:
-                        spritesTrn[metaData[1]].setOffset(offsetIndex, pos);
-                        break;
-                    case 3:
-                        spriteEgg.setOffset(offsetIndex, pos);
-                        break;
-                    default:
-                        break;
-                }
-            }
-            else // it is too big for the current bank
-            {
-                int gap = 0x4000 - (pos % 0x4000);
-
-                if (gap >= minSize) // there may be another later sprite that fills the bank
-                {
-                    // look into later sprites to see the one that fits leaving the least amount of space
-
-                    int minGap = 0xFFFF; // keep track of the minimum gap 
-                    int minGapIndex = 0;
-                    boolean found = false; // whether any candidates were found at all
-
-                    for (int i = 1; i < sprList.size(); i++) // cycle all later sprites
-                    {
-                        byte[] gapSpr = convertByteArray(sprList.get(i));
-                        if (gapSpr.length > gap)
-                        {
-                            continue; // skip big sprites
-                        }
-                        if (gapSpr.length == gap) // if it's exactly the gap size
-                        {
-                            minGapIndex = i;
-                            found = true;
-                            break; // no need to look for a new one
-                        }
-                        else if (gap - gapSpr.length < minGap)
-                        {
-                            minGap = gap - gapSpr.length;
-                            minGapIndex = i;
-                            found = true;
-                        }
-                    }
-
-                    if (found) // if any were found, place it in the bank
-                    {
-                        byte[] gapSpr = convertByteArray(sprList.get(minGapIndex)); // get sprite from the list
-                        int gapIndex = indexList.get(minGapIndex); // get associated sprite index
-                        boolean gapIsFront = isFrontList.get(minGapIndex);
-
-                        int[] gapMetaData = getMetaData(gapIndex);
-                        int gapOffsetIndex = (gapIsFront) ? 0 : 1;
-
-                        switch (gapMetaData[0]) // place sprite
-                        {
-                            case 0:
-                            case 1:
-                                sprites[gapMetaData[0]][gapMetaData[1]].setOffset(gapOffsetIndex, pos);
-                                break;
-                            case 2:
-                                spritesTrn[gapMetaData[1]].setOffset(gapOffsetIndex, pos);
-                                break;
-                            case 3:
-                                spriteEgg.setOffset(gapOffsetIndex, pos);
-                                break;
-                            default:
-                                break;
-                        }
-
-                        // remove the sprite from the lists
-                        sprList.remove(minGapIndex);
-                        indexList.remove(minGapIndex);
-                        isFrontList.remove(minGapIndex);
-
-                        pos += gapSpr.length; // adjust position
-                    }
-                }
-
-                pos = (int) floor((pos + thisSpr.length) / 0x4000) * 0x4000; // adjust position for the next bank
-                if (pos == OFFSET_SPRITE_POINTERS_U)
-                {
-                    pos += 6 * N_UNOWN; // don't overwrite Unown pointer table
-                }
-                if (pos == OFFSET_TRAINER_SPRITE_POINTERS)
-                {
-                    pos += 3 * N_TRAINER_SPRITES; // don't overwrite trainer pointer table
-                }
-                switch (metaData[0])
-                {
-                    case 0:
-                    case 1:
-                        sprites[metaData[0]][metaData[1]].setOffset(offsetIndex, pos);
-                        break;
-                    case 2:
-                        spritesTrn[metaData[1]].setOffset(offsetIndex, pos);
-                        break;
-                    case 3:
-                        spriteEgg.setOffset(offsetIndex, pos);
-                        break;
-                    default:
-                        break;
-                }
-            }
-
-            // remove the sprite from the lists
-            sprList.remove(0);
-            indexList.remove(0);
-            isFrontList.remove(0);
-
-            pos += thisSpr.length; // adjust position for next sprite
+            spr.setOffset(0, offsets[k++]);
         }
-    }
 
-    private int[] getMetaData(int index)
-    {
-        int[] out = new int[2]; // sprite group and true index
+        spriteEgg.setOffset(0, offsets[k]);
 
-        if (index < sprites[0].length + sprites[1].length) // for Pokemon
+        if (Log.enabled(Log.Level.INFO))
         {
-            out[0] = (index < sprites[0].length) ? 0 : 1; // whether it's regular or Unown sprites
-            out[1] = index % sprites[0].length; // translate it to the true index
+            int usedBytes = packer.getBytesUsed();
+            Log.info(String.format("Sprites packed: %d bytes used, %d bytes free (%.1f%% of the sprite banks).", usedBytes, packer.getBytesFree(), 100.0 * usedBytes / (usedBytes + packer.getBytesFree())));
         }
-        else if (index < sprites[0].length + sprites[1].length + spritesTrn.length) // for trainers
-        {
-            out[0] = 2;
-            out[1] = index - (sprites[0].length + sprites[1].length);
-        }
-        else // egg
+
+        if (Log.enabled(Log.Level.DEBUG))
         {
-            out[0] = 3;
-            out[1] = -1;
+            Log.debug(packer.describe());
         }
-
-        return out;
     }
 
     void printOffsets()
     {
+        if (!Log.enabled(Log.Level.DEBUG))
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
         for (int i = 0; i < sprites[0].length; i++)
         {
             int[] pos = sprites[0][i].getOffset();
-            System.out.println(i + ":" + pos[0] + " / " + pos[1]);
+            sb.append(i).append(':').append(pos[0]).append(" / ").append(pos[1]).append('\n');
         }
+
+        Log.debug(sb.toString());
     }
 }
@@ -0,0 +1,92 @@
+package engine;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+class SpriteIngest extends RecursiveAction
+{
+    // measures, validates and copies compressed pictures on the common ForkJoinPool
+    // once the data is in memory every picture is independent: the sources are only read
+    // with absolute gets, and each task writes its own slots of the output
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int THRESHOLD = 16; // pictures read by a task without splitting
+
+    private final ByteBuffer[] src;
+    private final int[] pos;
+    private final byte[][] out;
+    private final int from;
+    private final int to;
+
+    private SpriteIngest(ByteBuffer[] src, int[] pos, byte[][] out, int from, int to)
+    {
+        this.src = src;
+        this.pos = pos;
+        this.out = out;
+        this.from = from;
+        this.to = to;
+    }
+
+    static byte[][] read(ByteBuffer[] src, int[] pos)
+    {
+        // reads picture i at pos[i] of src[i], in the same order
+        // a null source gives an empty picture, for placeholder slots
+        byte[][] out = new byte[src.length][];
+        ForkJoinPool.commonPool().invoke(new SpriteIngest(src, pos, out, 0, src.length));
+        return out;
+    }
+
+    static long totalSize(byte[][] pics)
+    {
+        long n = 0;
+
+        for (byte[] pic : pics)
+        {
+            n += pic.length;
+        }
+
+        return n;
+    }
+
+    @Override
+    protected void compute()
+    {
+        if (to - from <= THRESHOLD)
+        {
+            for (int i = from; i < to; i++)
+            {
+                out[i] = readPicture(i);
+            }
+        }
+        else
+        {
+            int mid = (from + to) >>> 1;
+            invokeAll(new SpriteIngest(src, pos, out, from, mid), new SpriteIngest(src, pos, out, mid, to));
+        }
+    }
+
+    private byte[] readPicture(int i)
+    {
+        if (src[i] == null)
+        {
+            return new byte[0];
+        }
+
+        try
+        {
+            byte[] pic = new byte[LzCodec.size(src[i], pos[i])];
+            src[i].get(pos[i], pic);
+            return pic;
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            throw new IllegalArgumentException(String.format("Picture %d at 0x%X runs past the end of its data.", i, pos[i]), e);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(String.format("Picture %d at 0x%X: %s", i, pos[i], e.getMessage()), e);
+        }
+    }
+}
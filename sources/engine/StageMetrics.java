@@ -0,0 +1,211 @@
+package engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+class StageMetrics
+{
+    // records wall time, CPU time, allocated bytes and ROM bytes read/written for each stage of a run
+    // stage() closes the stage before it, so the pipeline only needs one line per stage
+    // everything is measured on the calling thread, so runs on different threads don't mix
+    // stages that hand work to the common ForkJoinPool are marked parallel: their wall time and ROM traffic are complete,
+    // but the CPU time and allocations of the pool's threads aren't counted, since the pool is shared by every run
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static class Stage
+    {
+        final String name;
+        final boolean parallel; // part of the work ran on other threads, so cpuNanos and allocatedBytes are undercounted
+        long wallNanos;
+        long cpuNanos;
+        long allocatedBytes;
+        long romBytesRead;
+        long romBytesWritten;
+
+        Stage(String name, boolean parallel)
+        {
+            this.name = name;
+            this.parallel = parallel;
+        }
+    }
+
+    private final boolean hasSeed;
+    private final long seed;
+    private final ArrayList<RomImage> images = new ArrayList<>(); // images whose traffic is counted
+    private final ArrayList<Stage> stages = new ArrayList<>();
+
+    private Stage cur = null;
+
+    // readings at the start of the current stage
+    private long startWall;
+    private long startCpu;
+    private long startAlloc;
+    private long startRead;
+    private long startWritten;
+
+    StageMetrics()
+    {
+        this.hasSeed = false;
+        this.seed = 0;
+    }
+
+    StageMetrics(long seed)
+    {
+        this.hasSeed = true;
+        this.seed = seed;
+    }
+
+    void track(RomImage image)
+    {
+        // counts the bytes read from and written to image from the next stage onwards
+        images.add(image);
+    }
+
+    void stage(String name)
+    {
+        stage(name, false);
+    }
+
+    void stage(String name, boolean parallel)
+    {
+        finish();
+
+        cur = new Stage(name, parallel);
+        startRead = romBytesRead();
+        startWritten = romBytesWritten();
+        startAlloc = allocatedBytes();
+        startCpu = cpuTime();
+        startWall = System.nanoTime();
+    }
+
+    void finish()
+    {
+        if (cur == null)
+        {
+            return;
+        }
+
+        cur.wallNanos = System.nanoTime() - startWall;
+        cur.cpuNanos = (startCpu < 0) ? -1 : cpuTime() - startCpu;
+        cur.allocatedBytes = (startAlloc < 0) ? -1 : allocatedBytes() - startAlloc;
+        cur.romBytesRead = romBytesRead() - startRead;
+        cur.romBytesWritten = romBytesWritten() - startWritten;
+
+        stages.add(cur);
+        cur = null;
+    }
+
+    String toJson()
+    {
+        // one object per run, with a list of stages and their sum
+        // counters the JVM can't provide are reported as -1
+        StringBuilder sb = new StringBuilder();
+        boolean anyParallel = false;
+
+        for (Stage s : stages)
+        {
+            anyParallel |= s.parallel;
+        }
+
+        Stage total = new Stage("total", anyParallel);
+
+        sb.append("{\n");
+
+        if (hasSeed)
+        {
+            sb.append("  \"seed\": ").append(seed).append(",\n");
+        }
+
+        sb.append("  \"stages\": [\n");
+
+        for (int i = 0; i < stages.size(); i++)
+        {
+            Stage s = stages.get(i);
+            sb.append("    ");
+            appendStage(sb, s);
+            sb.append((i < stages.size() - 1) ? ",\n" : "\n");
+
+            total.wallNanos += s.wallNanos;
+            total.cpuNanos = (total.cpuNanos < 0 || s.cpuNanos < 0) ? -1 : total.cpuNanos + s.cpuNanos;
+            total.allocatedBytes = (total.allocatedBytes < 0 || s.allocatedBytes < 0) ? -1 : total.allocatedBytes + s.allocatedBytes;
+            total.romBytesRead += s.romBytesRead;
+            total.romBytesWritten += s.romBytesWritten;
+        }
+
+        sb.append("  ],\n");
+        sb.append("  \"total\": ");
+        appendStage(sb, total);
+        sb.append("\n}\n");
+
+        return sb.toString();
+    }
+
+    void writeJson(File file) throws IOException
+    {
+        Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendStage(StringBuilder sb, Stage s)
+    {
+        // stage names are plain identifiers, so they need no escaping
+        sb.append("{\"name\": \"").append(s.name).append('"')
+                .append(", \"parallel\": ").append(s.parallel)
+                .append(", \"wallNanos\": ").append(s.wallNanos)
+                .append(", \"cpuNanos\": ").append(s.cpuNanos)
+                .append(", \"allocatedBytes\": ").append(s.allocatedBytes)
+                .append(", \"romBytesRead\": ").append(s.romBytesRead)
+                .append(", \"romBytesWritten\": ").append(s.romBytesWritten)
+                .append('}');
+    }
+
+    private long romBytesRead()
+    {
+        long n = 0;
+
+        for (RomImage image : images)
+        {
+            n += image.getBytesRead();
+        }
+
+        return n;
+    }
+
+    private long romBytesWritten()
+    {
+        long n = 0;
+
+        for (RomImage image : images)
+        {
+            n += image.getBytesWritten();
+        }
+
+        return n;
+    }
+
+    private static long cpuTime()
+    {
+        return (THREADS.isCurrentThreadCpuTimeSupported()) ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes()
+    {
+        // allocation counters are a HotSpot extension of the standard bean
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+            {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+}
@@ -1,6 +1,7 @@
 package engine;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
@@ -12,52 +13,73 @@ class TeamCustomizer extends MoveAnalyser
     MoveSorter moveSorter;
     PokemonClassifier monClassifier;
     Names names;
+    SplittableRandom rand;
 
-    TeamCustomizer(Move[] moves, MoveSorter moveSorter, Names names)
+    TeamCustomizer(Move[] moves, MoveSorter moveSorter, Names names, SplittableRandom rand)
     {
         this.moves = moves;
+        this.masks = moveSorter.masks;
         this.moveSorter = moveSorter;
         monClassifier = new PokemonClassifier(moves, moveSorter);
         this.names = names;
+        this.rand = rand;
+    }
+
+    private TeamCustomizer(TeamCustomizer base, SplittableRandom rand)
+    {
+        this.moves = base.moves;
+        this.masks = base.masks;
+        this.moveSorter = base.moveSorter;
+        this.monClassifier = base.monClassifier;
+        this.names = base.names;
+        this.rand = rand;
+    }
+
+    TeamCustomizer forStream(SplittableRandom rand)
+    {
+        // same customizer drawing from another random stream
+        return new TeamCustomizer(this, rand);
     }
 
     ArrayList<ArrayList<Move>> customize(PokemonGame[] team, int[] lvls, PokemonGame[] mons)
     {
+        ArrayList<String> spoiler = Log.enabled(Log.Level.SPOILER) ? new ArrayList<>() : null;
+        ArrayList<ArrayList<Move>> movesets = customize(team, lvls, mons, spoiler);
+
+        if (spoiler != null)
+        {
+            for (String s : spoiler)
+            {
+                Log.spoiler(s);
+            }
+        }
+
+        return movesets;
+    }
+
+    ArrayList<ArrayList<Move>> customize(PokemonGame[] team, int[] lvls, PokemonGame[] mons, ArrayList<String> spoiler)
+    {
+        // same, but the spoiler entries are added to spoiler (if not null) instead of logged,
+        // for callers that customize several teams at once and log them in order afterwards
+
         // assign roles
         ArrayList<ArrayList<Move>> movesets = new ArrayList<>();
-        ArrayList<ArrayList<Role>> roles = monClassifier.classify(team, lvls, mons);
+        PokemonClassifier.Roles[] roles = monClassifier.classify(team, lvls, mons);
 
         for (int i = 0; i < team.length; i++)
         {
             PokemonGame mon = team[i];
             int lvl = lvls[i];
-            Role chosenRole = chooseRole(mon, roles.get(i));
+            Role chosenRole = chooseRole(roles[i]);
 
             ArrayList<Move> movepool = getMovepool(mon, lvl, mons, moveSorter.getAllLearnable());
             ArrayList<Move> lvlUpMoves = getLevelUpMoves(mon, lvl, mons);
 
             ArrayList<Move> curMoveset = generateMoveset(mon, lvl, chosenRole, movepool, lvlUpMoves);
 
-            if (true)
+            if (spoiler != null)
             {
-                ArrayList<Double> prob = calculateProbabilities(mon, roles.get(i));
-                System.out.println(names.pokemon(team[i].getIndex()) + " lvl" + lvls[i]);
-                System.out.printf("Roles: ");
-
-                for (int j = 0; j < roles.get(i).size(); j++)
-                {
-                    System.out.print(roles.get(i).get(j) + " " + (int) (prob.get(j) * 100) + "% | ");
-                }
-
-                System.out.printf("\n");
-                System.out.printf("Chosen:" + chosenRole + "\n\n");
-
-                curMoveset.forEach((m) ->
-                {
-                    System.out.println("\t" + names.move(m.getIndex()) + ", tier " + m.getTier());
-                });
-
-                System.out.printf("\n");
+                spoiler.add(describe(mon, lvl, roles[i], chosenRole, curMoveset));
             }
 
             movesets.add(curMoveset);
@@ -66,131 +88,54 @@ class TeamCustomizer extends MoveAnalyser
         return movesets;
     }
 
-    private Role chooseRole(PokemonGame mon, ArrayList<Role> roles)
+    private String describe(PokemonGame mon, int lvl, PokemonClassifier.Roles roles, Role chosenRole, ArrayList<Move> moveset)
     {
-        // chooses a random role
-        ArrayList<Double> prob = calculateProbabilities(mon, roles);
-        Double cumulative = 0.0;
-        Double r = random();
-        int i = 0;
-        Role chosenRole = null;
+        // spoiler entry for one team member, built as a single message so it stays in one piece
+        StringBuilder sb = new StringBuilder();
 
-        for (Double p : prob)
-        {
-            cumulative += p;
-            
-            if (r < cumulative)
-            {
-                chosenRole = roles.get(i);
-                break;
-            }
+        sb.append(names.pokemon(mon.getIndex())).append(" lvl").append(lvl).append('\n');
+        sb.append("Roles: ");
 
-            i++;
+        for (int j = 0; j < roles.roles.length; j++)
+        {
+            sb.append(roles.roles[j]).append(' ').append((int) (roles.prob[j] * 100)).append("% | ");
         }
 
-        if (chosenRole == null) // failsafe
+        sb.append('\n');
+        sb.append("Chosen:").append(chosenRole).append("\n\n");
+
+        for (Move m : moveset)
         {
-            chosenRole = roles.get(roles.size() - 1);
+            sb.append('\t').append(names.move(m.getIndex())).append(", tier ").append(m.getTier()).append('\n');
         }
 
-        return chosenRole;
+        return sb.toString();
     }
 
-    private ArrayList<Double> calculateProbabilities(PokemonGame mon, ArrayList<Role> roles)
+    private Role chooseRole(PokemonClassifier.Roles roles)
     {
-        // calculate the weighted probabilities of getting each role according to Pokemon's attributes
-        ArrayList<Double> prob = new ArrayList<>();
-        ArrayList<Double> points = new ArrayList<>();
-        double totalPoints = 0;
-
-        int hp = mon.getHP();
-        int atk = mon.getAtk();
-        int satk = mon.getSAtk();
-        int def = mon.getDef();
-        int sdef = mon.getSDef();
-        int spd = mon.getSpd();
-
-        int statAvrg = mon.getBST() / 6;
+        // chooses a random role
+        double cumulative = 0.0;
+        double r = rand.nextDouble();
+        Role chosenRole = null;
 
-        for (Role r : roles)
+        for (int i = 0; i < roles.prob.length; i++)
         {
-            double calc = 0;
+            cumulative += roles.prob[i];
 
-            switch (r)
+            if (r < cumulative)
             {
-                case PHYOFF:
-                    calc += (atk - statAvrg) / (double) 1;
-                    break;
-                case SPEOFF:
-                    calc += (satk - statAvrg) / (double) 1;
-                    break;
-                case MIXED:
-                    calc += (atk - statAvrg) / (double) 2;
-                    calc += (satk - statAvrg) / (double) 2;
-                    break;
-                case PHYSWEEPER:
-                    calc += (atk - statAvrg) / (double) 2;
-                    calc += (spd - statAvrg) / (double) 2;
-                    break;
-                case SPESWEEPER:
-                    calc += (satk - statAvrg) / (double) 2;
-                    calc += (spd - statAvrg) / (double) 2;
-                    break;
-                case PHYTANK:
-                    calc += (atk - statAvrg) / (double) 3;
-                    calc += (def - statAvrg) / (double) 3;
-                    calc += (sdef - statAvrg) / (double) 3;
-                    break;
-                case SPETANK:
-                    calc += (satk - statAvrg) / (double) 3;
-                    calc += (def - statAvrg) / (double) 3;
-                    calc += (sdef - statAvrg) / (double) 3;
-                    break;
-                case SUPPORT:
-                case STALLER:
-                    calc += (hp - statAvrg) / (double) 3;
-                    calc += (def - statAvrg) / (double) 3;
-                    calc += (sdef - statAvrg) / (double) 3;
-                    break;
-                case SLEEP_TALKER:
-                    calc += (hp - statAvrg) / (double) 2;
-                    calc += max((atk - statAvrg), (satk - statAvrg)) / (double) 2;
-                    break;
-                case DREAM_EATER:
-                    calc += (satk - statAvrg) / (double) 1;
-                    break;
-                case CURSER:
-                    calc += (atk - statAvrg) / (double) 3;
-                    calc += (sdef - statAvrg) / (double) 3;
-                    calc += -(spd - statAvrg) / (double) 3;
-                    break;
-                case FLAILER:
-                    calc += (atk - statAvrg) / (double) 3;
-                    calc += (spd - statAvrg) / (double) 3;
-                    calc += -(hp - statAvrg) / (double) 3;
-                    break;
-                case BELLY_DRUMMER:
-                    calc += (hp - statAvrg) / (double) 1;
-                    break;
-                case PERISH_TRAPPER:
-                    calc += (spd - statAvrg) / (double) 1;
-                    break;
-                default:
-                    calc = 1;
+                chosenRole = roles.roles[i];
+                break;
             }
-
-            calc = max(1, calc);
-
-            points.add(calc);
-            totalPoints += calc;
         }
 
-        for (int i = 0; i < roles.size(); i++)
+        if (chosenRole == null) // failsafe
         {
-            prob.add(points.get(i) / totalPoints);
+            chosenRole = roles.roles[roles.roles.length - 1];
         }
 
-        return prob;
+        return chosenRole;
     }
 
     private ArrayList<Move> generateMoveset(PokemonGame mon, int lvl, Role role, ArrayList<Move> movepool, ArrayList<Move> lvlUpMoves)
@@ -268,14 +213,8 @@ class TeamCustomizer extends MoveAnalyser
     private void trimMovepool(ArrayList<Move> movepool, ArrayList<Move> lvlUpMoves, int maxTier)
     {
         // removes moves that are over maxTier, except those that can already be attained by level up
-        for (int i = movepool.size() - 1; i >= 0; i--)
-        {
-            Move curMove = movepool.get(i);
-            if (curMove.getTier() > maxTier && !lvlUpMoves.contains(curMove))
-            {
-                movepool.remove(i);
-            }
-        }
+        MoveSet keep = masks.upToTier[maxTier].or(MoveSet.of(lvlUpMoves));
+        movepool.removeIf(m -> !keep.contains(m));
     }
 
     private void padMovepool(ArrayList<Move> moveset, ArrayList<Move> lvlUpMoves)
@@ -413,7 +352,10 @@ class TeamCustomizer extends MoveAnalyser
                 break;
             }
 
-            System.out.println(movesOff.size());
+            if (Log.enabled(Log.Level.DEBUG))
+            {
+                Log.debug(Integer.toString(movesOff.size()));
+            }
         }
     }
 
@@ -977,7 +919,7 @@ class TeamCustomizer extends MoveAnalyser
 
         if (setupMoveOff != null && (setupMoveSpd != null && mon.getSpd() < mon.getBST() * 0.17)) // if has both, pick randomly
         {
-            setupMove = (random() < 0.5) ? setupMoveOff : setupMoveSpd;
+            setupMove = rand.nextBoolean() ? setupMoveOff : setupMoveSpd;
         }
         else if (setupMoveOff != null) // only has offense setup
         {
@@ -1002,7 +944,7 @@ class TeamCustomizer extends MoveAnalyser
 
         if (setupMoveOff != null && (setupMoveSpd != null && mon.getSpd() < mon.getBST() * 0.17)) // if has both, pick randomly
         {
-            setupMove = (random() < 0.5) ? setupMoveOff : setupMoveSpd;
+            setupMove = rand.nextBoolean() ? setupMoveOff : setupMoveSpd;
         }
         else if (setupMoveOff != null) // only has offense setup
         {
@@ -1026,7 +968,7 @@ class TeamCustomizer extends MoveAnalyser
 
         if (setupMoveDef != null && setupMoveSDef != null) // if has both, pick randomly
         {
-            setupMove = (random() < 0.5) ? setupMoveDef : setupMoveSDef;
+            setupMove = rand.nextBoolean() ? setupMoveDef : setupMoveSDef;
         }
         else if (setupMoveDef != null) // only has phy setup
         {
@@ -1172,7 +1114,7 @@ class TeamCustomizer extends MoveAnalyser
             }
             else // compare moves
             {
-                if (random() < 1 / (double) movepool.size())
+                if (rand.nextDouble() < 1 / (double) movepool.size())
                 {
                     chosenMove = m;
                 }
@@ -1231,7 +1173,7 @@ class TeamCustomizer extends MoveAnalyser
             }
             else // compare moves
             {
-                if (random() < 1 / (double) availableMoves.size())
+                if (rand.nextDouble() < 1 / (double) availableMoves.size())
                 {
                     chosenMove = m;
                 }
@@ -1335,11 +1277,14 @@ class TeamCustomizer extends MoveAnalyser
                 }
             }
 
-            int randIndex = (int) floor(random() * sameTierMoves.size());
+            int randIndex = rand.nextInt(sameTierMoves.size());
             moveset.remove(moveset.indexOf(sameTierMoves.get(randIndex)));
             moveset.add(move);
 
-            System.out.println(names.move(sameTierMoves.get(randIndex).getIndex()) + " replaced by " + names.move(move.getIndex()));
+            if (Log.enabled(Log.Level.DEBUG))
+            {
+                Log.debug(names.move(sameTierMoves.get(randIndex).getIndex()) + " replaced by " + names.move(move.getIndex()));
+            }
         }
     }
 
@@ -1395,7 +1340,7 @@ class TeamCustomizer extends MoveAnalyser
                     }
                 }
 
-                int randIndex = (int) floor(random() * (float) sameTierMoves.size());
+                int randIndex = rand.nextInt(sameTierMoves.size());
                 moveset.remove(moveset.indexOf(sameTierMoves.get(randIndex)));
                 moveset.add(mIn);
 
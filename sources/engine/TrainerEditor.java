@@ -1,23 +1,32 @@
 package engine;
 
 import java.util.ArrayList;
-import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import static java.lang.Math.*;
 
 import static data.Constants.*;
 import data.Move;
 import data.Trainer;
 import data.PokemonGame;
+import util.ByteList;
+import engine.RandomStreams.Stage;
 
 class TrainerEditor
 {
     private Trainer[] trainers;
     private PokemonGame[] mons;
+    private SplittableRandom rand;
 
-    TrainerEditor(RomReader romReader, PokemonGame[] mons) throws IOException
+    TrainerEditor(RomSnapshot snapshot, PokemonGame[] mons, SplittableRandom rand)
     {
-        this.trainers = romReader.readRomTrainers();
+        this.trainers = snapshot.copyTrainers();
         this.mons = mons;
+        this.rand = rand;
     }
 
     void buffKanto(PokemonSorter<PokemonGame> monSorter, MoveSorter moveSorter)
@@ -38,7 +47,7 @@ class TrainerEditor
             byte[][] moves = new byte[size][4];
             int[] partyTiers = new int[size];
 
-            int newSize = (int) min(size + floor(random() * partyAddMax), 6);
+            int newSize = min(size + ((partyAddMax > 0) ? rand.nextInt(partyAddMax) : 0), 6);
             int[] newLvl = new int[newSize];
             int[] newParty = new int[newSize];
             byte[] newItems = new byte[newSize];
@@ -78,12 +87,12 @@ class TrainerEditor
 
             for (int j = size; j < newSize; j++) // add the new Pokemon to party
             {
-                lastLvl += (int) floor(random() * 2); // randomly add levels
+                lastLvl += rand.nextInt(2); // randomly add levels
                 lastLvl = min(lastLvl, 100); // constrain level
                 newLvl[j] = lastLvl;
 
-                int randTier = partyTiers[(int) floor(random() * size)]; // get a random tier from the original party
-                newParty[j] = monSorter.getSameTier(randTier, Type.NO_TYPE, true, false).getIntIndex();
+                int randTier = partyTiers[rand.nextInt(size)]; // get a random tier from the original party
+                newParty[j] = monSorter.getSameTier(randTier, Type.NO_TYPE, true, false, rand).getIntIndex();
 
                 if (trainers[i].hasItems()) // has items
                 {
@@ -97,10 +106,11 @@ class TrainerEditor
             }
 
             byte[][] finalParty = new byte[newSize][];
+            ByteList slotList = new ByteList(8); // level, species, item and 4 moves at most
 
             for (int j = 0; j < newSize; j++) // set the trainer bytes
             {
-                ArrayList<Byte> slotList = new ArrayList<>();
+                slotList.clear();
                 slotList.add(valueToByte(newLvl[j]));
                 slotList.add(valueToByte(newParty[j]));
 
@@ -111,13 +121,10 @@ class TrainerEditor
 
                 if (trainers[i].hasMoves()) // has moves
                 {
-                    for (byte curMove : newMoves[j])
-                    {
-                        slotList.add(curMove);
-                    }
+                    slotList.add(newMoves[j]);
                 }
 
-                finalParty[j] = convertByteArray(slotList.toArray(new Byte[0]));
+                finalParty[j] = slotList.toArray();
             }
 
             trainers[i].setParty(finalParty);
@@ -140,7 +147,7 @@ class TrainerEditor
                 lvls[j] = byteToValue(trainers[i].getLvl(j));
             }
 
-            byte[] newParty = valueToByte(monSorter.evolveTeam(byteToValue(party), lvls));
+            byte[] newParty = valueToByte(monSorter.evolveTeam(byteToValue(party), lvls, rand));
 
             for (int j = 0; j < size; j++) // set the trainer bytes
             {
@@ -149,73 +156,51 @@ class TrainerEditor
         }
     }
 
-    void randomizePokemon(PokemonSorter<PokemonGame> monSorter, boolean withSimilar, int typeExpert, boolean persRival, boolean noLeg, boolean extraCust)
+    void randomizePokemon(PokemonSorter<PokemonGame> monSorter, boolean withSimilar, int typeExpert, boolean persRival, boolean noLeg, boolean extraCust, RandomStreams random, boolean parallel)
     {
         // typeExpert: 
         // 0 = no type specialists;
         // 1 = preserve type specialists;
         // 2 = randomize type specialists.
 
-        for (int i = 0; i < N_TRAINERS; i++)
+        // ordinary trainers and trainer class specialists don't depend on each other,
+        // so each one draws from its own stream, derived from the seed and the trainer's index,
+        // and they give the same parties whether they are randomized in order or in parallel
+        // gyms, the Elite Four, forced mixed teams and the Rival are done afterwards, in order, from the editor's stream
+        ArrayList<ArrayList<PokemonGame>> classMons = new ArrayList<>(); // Pokemon of each trainer class' types
+
+        if (typeExpert != 0)
         {
-            if (isSpecialTrainer(i, typeExpert, true, persRival)) continue; // skip trainers handled afterwards
-            
-            if (extraCust)
+            for (Type[] types : TRAINER_CLASS_TYPES)
             {
-                if (trainers[i].getMaxLvl() < MIN_LEVEL_CUST_MOVES)
-                    trainers[i].removeCustMoves();
-            
-                if (i >= INDEX_TRAINER_COOLTRAINER[0] && i <= INDEX_TRAINER_COOLTRAINER[1])
-                    trainers[i].addCustMoves();
-            }
-         
-            for (int j = 0; j < trainers[i].getPartySize(); j++)
-            {
-                if (withSimilar)
-                {
-                    PokemonGame initialMon = mons[byteToValue(trainers[i].getPokeByte(j)) - 1];
-                    trainers[i].setPoke(j, monSorter.getSameTier(initialMon.getOldTier(), Type.NO_TYPE, noLeg, false).getIntIndex());
-                }
-                else
-                {
-                    trainers[i].setPoke(j, valueToByte((int) floor(N_POKEMON * random()) + 1));
-                }
-                
-                
+                classMons.add(monSorter.getPokemonOfType(types));
             }
         }
 
-        if (typeExpert != 0) // patch over type specialists
-        {
-            Type[][] typeClassList = TRAINER_CLASS_TYPES; // get type list for trainer class
+        IntStream indexes = IntStream.range(0, N_TRAINERS);
 
-            for (int i = 0; i < INDEX_TRAINER_CLASSES.length; i++) // cycle trainer classes
+        (parallel ? indexes.parallel() : indexes).forEach(i ->
+        {
+            if (!isSpecialTrainer(i, typeExpert, true, persRival))
             {
-                ArrayList<PokemonGame> monsOfType = monSorter.getPokemonOfType(typeClassList[i]);
+                randomizeOrdinary(i, monSorter, withSimilar, noLeg, extraCust, random.stream(Stage.TRAINERS, i));
+            }
+            else if (typeExpert != 0 && !isSpecialTrainer(i, typeExpert, false, persRival)) // patch over type specialists
+            {
+                SplittableRandom stream = random.stream(Stage.TRAINERS, i);
 
-                for (int j = INDEX_TRAINER_CLASSES[i][0]; j <= INDEX_TRAINER_CLASSES[i][1]; j++) // cycle trainers
+                for (int c = 0; c < INDEX_TRAINER_CLASSES.length; c++) // cycle trainer classes
                 {
-                    if (isSpecialTrainer(j, typeExpert, false, persRival)) continue; // skip trainers handled afterwards
-
-                    for (int k = 0; k < trainers[j].getPartySize(); k++) // cycle party
+                    if (i >= INDEX_TRAINER_CLASSES[c][0] && i <= INDEX_TRAINER_CLASSES[c][1])
                     {
-                        PokemonGame randMon;
-
-                        if (withSimilar)
-                        {
-                            PokemonGame initialMon = mons[byteToValue(trainers[j].getPokeByte(k)) - 1];
-                            randMon = monSorter.getSameTier(initialMon, typeClassList[i], noLeg, false);
-                        }
-                        else
-                        {
-                            randMon = monsOfType.get((int) floor(random() * monsOfType.size()));
-                        }
-
-                        trainers[j].setPoke(k, randMon.getIntIndex());
+                        randomizeClass(i, TRAINER_CLASS_TYPES[c], classMons.get(c), monSorter, withSimilar, noLeg, stream);
                     }
                 }
             }
+        });
 
+        if (typeExpert != 0)
+        {
             Type[] typeList = (typeExpert == 1) ? GYM_TYPES : randomizeTypeList(GYM_TYPES); // get type list for gyms
 
             for (int i = 0; i < INDEX_GYM_TRAINERS.length; i++) // cycle gyms
@@ -231,11 +216,11 @@ class TrainerEditor
                         if (withSimilar)
                         {
                             PokemonGame initialMon = mons[byteToValue(trainers[INDEX_GYM_TRAINERS[i][j]].getPokeByte(k)) - 1];
-                            randMon = monSorter.getSameTier(initialMon, typeList[i], noLeg, false).getIntIndex();
+                            randMon = monSorter.getSameTier(initialMon, typeList[i], noLeg, false, rand).getIntIndex();
                         }
                         else
                         {
-                            randMon = monsOfType.get((int) floor(random() * monsOfType.size())).getIntIndex();
+                            randMon = monsOfType.get(rand.nextInt(monsOfType.size())).getIntIndex();
                         }
 
                         trainers[INDEX_GYM_TRAINERS[i][j]].setPoke(k, randMon);
@@ -256,11 +241,11 @@ class TrainerEditor
                     if (withSimilar)
                     {
                         PokemonGame initialMon = mons[byteToValue(trainers[INDEX_ELITE_FOUR[i]].getPokeByte(j)) - 1];
-                        randMon = monSorter.getSameTier(initialMon, typeList[i], noLeg, false).getIntIndex();
+                        randMon = monSorter.getSameTier(initialMon, typeList[i], noLeg, false, rand).getIntIndex();
                     }
                     else
                     {
-                        randMon = monsOfType.get((int) floor(random() * monsOfType.size())).getIntIndex();
+                        randMon = monsOfType.get(rand.nextInt(monsOfType.size())).getIntIndex();
                     }
 
                     trainers[INDEX_ELITE_FOUR[i]].setPoke(j, randMon);
@@ -273,18 +258,18 @@ class TrainerEditor
 
                 for (int i = 0; i < INDEX_MIXED_TRAINERS.length; i++) // cycle mixed Trainers
                 {
-                    ArrayList<PokemonGame> prevMonList = new ArrayList<>(); // keep track of previous Pokemon in team
+                    TypeCoverage prevMonTypes = new TypeCoverage(); // keep track of the types of previous Pokemon in team
 
                     for (int j = 0; j < trainers[INDEX_MIXED_TRAINERS[i]].getPartySize(); j++) // cycle party
                     {
                         int randMon;
 
                         PokemonGame initialMon = mons[byteToValue(trainers[INDEX_MIXED_TRAINERS[i]].getPokeByte(j)) - 1];
-                        PokemonGame chosenMon = monSorter.getSameTier(initialMon, noLeg, false, true, prevMonList);
+                        PokemonGame chosenMon = monSorter.getSameTier(initialMon, noLeg, false, true, prevMonTypes, rand);
                         randMon = chosenMon.getIntIndex();
 
                         trainers[INDEX_MIXED_TRAINERS[i]].setPoke(j, randMon);
-                        prevMonList.add(chosenMon);
+                        prevMonTypes.add(chosenMon);
                     }
                 }
 
@@ -312,7 +297,7 @@ class TrainerEditor
                         }
                     }
 
-                    int[][][] rivalTeams = monSorter.generateRivalTeams(finalRivalTeam, levels, noLeg); //[Starter index][Battle number][Pokemon party]
+                    int[][][] rivalTeams = monSorter.generateRivalTeams(finalRivalTeam, levels, noLeg, rand); //[Starter index][Battle number][Pokemon party]
 
                     for (int i = 0; i < rivalTeams.length; i++) // cycle starters
                     {
@@ -337,6 +322,51 @@ class TrainerEditor
         }
     }
 
+    private void randomizeOrdinary(int i, PokemonSorter<PokemonGame> monSorter, boolean withSimilar, boolean noLeg, boolean extraCust, SplittableRandom rand)
+    {
+        if (extraCust)
+        {
+            if (trainers[i].getMaxLvl() < MIN_LEVEL_CUST_MOVES)
+                trainers[i].removeCustMoves();
+
+            if (i >= INDEX_TRAINER_COOLTRAINER[0] && i <= INDEX_TRAINER_COOLTRAINER[1])
+                trainers[i].addCustMoves();
+        }
+
+        for (int j = 0; j < trainers[i].getPartySize(); j++)
+        {
+            if (withSimilar)
+            {
+                PokemonGame initialMon = mons[byteToValue(trainers[i].getPokeByte(j)) - 1];
+                trainers[i].setPoke(j, monSorter.getSameTier(monSorter.getPokemonOldTier(initialMon.getIntIndex(), false), Type.NO_TYPE, noLeg, false, rand).getIntIndex());
+            }
+            else
+            {
+                trainers[i].setPoke(j, valueToByte(rand.nextInt(N_POKEMON) + 1));
+            }
+        }
+    }
+
+    private void randomizeClass(int i, Type[] types, ArrayList<PokemonGame> monsOfType, PokemonSorter<PokemonGame> monSorter, boolean withSimilar, boolean noLeg, SplittableRandom rand)
+    {
+        for (int k = 0; k < trainers[i].getPartySize(); k++) // cycle party
+        {
+            PokemonGame randMon;
+
+            if (withSimilar)
+            {
+                PokemonGame initialMon = mons[byteToValue(trainers[i].getPokeByte(k)) - 1];
+                randMon = monSorter.getSameTier(initialMon, types, noLeg, false, rand);
+            }
+            else
+            {
+                randMon = monsOfType.get(rand.nextInt(monsOfType.size()));
+            }
+
+            trainers[i].setPoke(k, randMon.getIntIndex());
+        }
+    }
+
     void scaleLevel(float mult)
     {
         for (int i = 0; i < N_TRAINERS; i++)
@@ -354,14 +384,23 @@ class TrainerEditor
         return trainers;
     }
 
-    void applyMovesets(PokemonGame[] mons, TeamCustomizer teamCust)
+    void applyMovesets(PokemonGame[] mons, TeamCustomizer teamCust, RandomStreams random, boolean parallel)
     {
         // scaling level or changing Trainer Pokemon messes with custom moves
         // so this function must be called after applying one of those changes
         // for coherent movesets
-        
-        for (Trainer t : trainers)
+
+        // every trainer draws from its own stream, derived from the seed and the trainer's index,
+        // so the movesets are the same whether the trainers are customized in order or in parallel
+        // the spoiler entries are kept per trainer and logged in trainer order at the end
+        ArrayList<Trainer> custom = new ArrayList<>(); // trainers with custom moves
+        ArrayList<ArrayList<String>> spoilers = new ArrayList<>();
+        ArrayList<Supplier<ArrayList<ArrayList<Move>>>> tasks = new ArrayList<>();
+        boolean spoil = Log.enabled(Log.Level.SPOILER);
+
+        for (int k = 0; k < trainers.length; k++)
         {
+            Trainer t = trainers[k];
             Trainer.Kind kind = t.getKind();
 
             if (kind != Trainer.Kind.WMOVES && kind != Trainer.Kind.WMOVESITEMS)
@@ -380,11 +419,33 @@ class TrainerEditor
                 lvls[i] = lvl;
             }
 
-            ArrayList<ArrayList<Move>> movesets = teamCust.customize(team, lvls, mons);
+            TeamCustomizer cust = teamCust.forStream(random.stream(Stage.TEAMS, k));
+            ArrayList<String> spoiler = spoil ? new ArrayList<>() : null;
+
+            custom.add(t);
+            spoilers.add(spoiler);
+            tasks.add(() -> cust.customize(team, lvls, mons, spoiler));
+        }
+
+        // the teams only read shared data, the results are collected in trainer order
+        Stream<Supplier<ArrayList<ArrayList<Move>>>> stream = parallel ? tasks.parallelStream() : tasks.stream();
+        List<ArrayList<ArrayList<Move>>> movesets = stream.map(Supplier::get).collect(Collectors.toList());
+
+        for (int k = 0; k < custom.size(); k++)
+        {
+            Trainer t = custom.get(k);
 
             for (int j = 0; j < t.getPartySize(); j++)
             {
-                t.setMoves(j, movesets.get(j));
+                t.setMoves(j, movesets.get(k).get(j));
+            }
+
+            if (spoil)
+            {
+                for (String s : spoilers.get(k))
+                {
+                    Log.spoiler(s);
+                }
             }
         }
     }
@@ -406,7 +467,7 @@ class TrainerEditor
             n++;
         }
 
-        allTypes = shuffleArray(allTypes); // shuffle types
+        allTypes = shuffleArray(allTypes, rand); // shuffle types
         int nEqualities = 0;
         ArrayList<Integer> equalIndex = new ArrayList<>();
 
@@ -532,32 +593,40 @@ class TrainerEditor
 
     void printTeam(Names names, int n)
     {
+        if (!Log.enabled(Log.Level.SPOILER))
+        {
+            return;
+        }
+
         Trainer t = trainers[n];
+        StringBuilder sb = new StringBuilder();
 
-        System.out.println("~~~ " + names.trainer(n) + " ~~~");
+        sb.append("~~~ ").append(names.trainer(n)).append(" ~~~\n");
         for (int i = 0; i < t.getPartySize(); i++)
         {
             byte[] b = t.getPokeBytes(i);
 
-            System.out.println(names.pokemon(b[1]) + " lvl " + byteToValue(b[0]));
+            sb.append(names.pokemon(b[1])).append(" lvl ").append(byteToValue(b[0])).append('\n');
 
             if (t.getKind() == Trainer.Kind.WMOVES)
             {
                 for (int j = 0; j < 4; j++)
                 {
-                    System.out.println(" - " + names.move(b[2 + j]));
+                    sb.append(" - ").append(names.move(b[2 + j])).append('\n');
                 }
             }
             else if (t.getKind() == Trainer.Kind.WMOVESITEMS)
             {
                 for (int j = 0; j < 4; j++)
                 {
-                    System.out.println(" - " + names.move(b[3 + j]));
+                    sb.append(" - ").append(names.move(b[3 + j])).append('\n');
                 }
             }
 
-            System.out.println();
+            sb.append('\n');
         }
+
+        Log.spoiler(sb.toString());
     }
 
     void printTeams(Names names)
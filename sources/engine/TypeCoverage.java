@@ -0,0 +1,70 @@
+package engine;
+
+import java.util.Arrays;
+
+import static data.Constants.*;
+import data.Pokemon;
+
+class TypeCoverage
+{
+    // types covered by a team that is being put together, for the forced mixed teams
+    // a team is redundant if one of its members has both of its types repeated by other members
+    // types are kept as bit masks (one bit per type), so checking a candidate is a few bitwise operations
+    // instead of comparing every pair of members
+
+    private int once = 0; // types of at least one member
+    private int twice = 0; // types of at least two members
+    private int[] members = new int[6]; // types of each member
+    private int size = 0;
+
+    static int mask(Pokemon mon)
+    {
+        Type[] types = mon.getTypes();
+        return bit(types[0]) | bit(types[1]);
+    }
+
+    private static int bit(Type type)
+    {
+        return (type == Type.NO_TYPE) ? 1 << N_TYPES : 1 << type.intIndex();
+    }
+
+    void add(Pokemon mon)
+    {
+        int m = mask(mon);
+
+        if (size == members.length)
+        {
+            members = Arrays.copyOf(members, size * 2);
+        }
+
+        members[size++] = m;
+        twice |= once & m;
+        once |= m;
+    }
+
+    boolean isRedundant(Pokemon mon)
+    {
+        return isRedundant(mask(mon));
+    }
+
+    boolean isRedundant(int m)
+    {
+        // whether adding a member with types m would make the team redundant
+        if ((m & ~once) == 0)
+        {
+            return true; // all of its types are already in the team
+        }
+
+        int twiceWith = twice | (once & m);
+
+        for (int i = 0; i < size; i++)
+        {
+            if ((members[i] & ~twiceWith) == 0)
+            {
+                return true; // it repeats the last unrepeated type of this member
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,138 @@
+package util;
+
+import java.util.Arrays;
+
+public class ByteList
+{
+    // growable list of bytes, for building byte arrays without boxing every element
+    // toArray() copies, so the list can be cleared and reused afterwards
+
+    private byte[] data;
+    private int size = 0;
+
+    public ByteList()
+    {
+        this(16);
+    }
+
+    public ByteList(int capacity)
+    {
+        this.data = new byte[Math.max(capacity, 1)];
+    }
+
+    public ByteList(byte[] b)
+    {
+        this(b.length);
+        add(b);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public byte get(int n)
+    {
+        checkIndex(n);
+        return data[n];
+    }
+
+    public void set(int n, byte b)
+    {
+        checkIndex(n);
+        data[n] = b;
+    }
+
+    public void add(byte b)
+    {
+        if (size == data.length)
+        {
+            grow(size + 1);
+        }
+
+        data[size++] = b;
+    }
+
+    public void add(byte[] b)
+    {
+        if (size + b.length > data.length)
+        {
+            grow(size + b.length);
+        }
+
+        System.arraycopy(b, 0, data, size, b.length);
+        size += b.length;
+    }
+
+    public byte removeAt(int n)
+    {
+        // removes the nth byte, shifting the ones after it
+        checkIndex(n);
+        byte b = data[n];
+        System.arraycopy(data, n + 1, data, n, size - n - 1);
+        size--;
+        return b;
+    }
+
+    public void removeAll(IdSet ids)
+    {
+        // removes every byte whose unsigned value is in ids, keeping the order of the rest
+        int n = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (!ids.contains(data[i] & 0xFF))
+            {
+                data[n++] = data[i];
+            }
+        }
+
+        size = n;
+    }
+
+    public int indexOf(byte b)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (data[i] == b)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(byte b)
+    {
+        return indexOf(b) >= 0;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public byte[] toArray()
+    {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void grow(int minCapacity)
+    {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, minCapacity));
+    }
+
+    private void checkIndex(int n)
+    {
+        if (n < 0 || n >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + n + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package util;
+
+import java.util.Arrays;
+
+public class IdSet
+{
+    // set of small non-negative ids (species, moves, types...) as a bitset, one bit per id
+    // grows as ids are added, and contains() is false for anything beyond what was ever added
+
+    private long[] words;
+
+    public IdSet()
+    {
+        this(0x100);
+    }
+
+    public IdSet(int capacity)
+    {
+        this.words = new long[Math.max((capacity + 63) >>> 6, 1)];
+    }
+
+    public static IdSet ofUnsigned(byte[] ids)
+    {
+        // set of the unsigned values of ids, as stored in the ROM
+        IdSet set = new IdSet(0x100);
+
+        for (byte id : ids)
+        {
+            set.add(id & 0xFF);
+        }
+
+        return set;
+    }
+
+    public void add(int id)
+    {
+        if (id < 0)
+        {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+
+        int w = id >>> 6;
+
+        if (w >= words.length)
+        {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, w + 1));
+        }
+
+        words[w] |= 1L << id;
+    }
+
+    public void remove(int id)
+    {
+        int w = id >>> 6;
+
+        if (w < words.length)
+        {
+            words[w] &= ~(1L << id);
+        }
+    }
+
+    public boolean contains(int id)
+    {
+        int w = id >>> 6;
+        return w < words.length && (words[w] & (1L << id)) != 0;
+    }
+
+    public int size()
+    {
+        int n = 0;
+
+        for (long w : words)
+        {
+            n += Long.bitCount(w);
+        }
+
+        return n;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(words, 0);
+    }
+}
@@ -0,0 +1,138 @@
+package util;
+
+import java.util.Arrays;
+
+public class IntList
+{
+    // growable list of ints, for building int arrays without boxing every element
+    // toArray() copies, so the list can be cleared and reused afterwards
+
+    private int[] data;
+    private int size = 0;
+
+    public IntList()
+    {
+        this(16);
+    }
+
+    public IntList(int capacity)
+    {
+        this.data = new int[Math.max(capacity, 1)];
+    }
+
+    public IntList(int[] x)
+    {
+        this(x.length);
+        add(x);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int get(int n)
+    {
+        checkIndex(n);
+        return data[n];
+    }
+
+    public void set(int n, int x)
+    {
+        checkIndex(n);
+        data[n] = x;
+    }
+
+    public void add(int x)
+    {
+        if (size == data.length)
+        {
+            grow(size + 1);
+        }
+
+        data[size++] = x;
+    }
+
+    public void add(int[] x)
+    {
+        if (size + x.length > data.length)
+        {
+            grow(size + x.length);
+        }
+
+        System.arraycopy(x, 0, data, size, x.length);
+        size += x.length;
+    }
+
+    public int removeAt(int n)
+    {
+        // removes the nth element, shifting the ones after it
+        checkIndex(n);
+        int x = data[n];
+        System.arraycopy(data, n + 1, data, n, size - n - 1);
+        size--;
+        return x;
+    }
+
+    public void removeAll(IdSet ids)
+    {
+        // removes every element that is in ids, keeping the order of the rest
+        int n = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (!ids.contains(data[i]))
+            {
+                data[n++] = data[i];
+            }
+        }
+
+        size = n;
+    }
+
+    public int indexOf(int x)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (data[i] == x)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(int x)
+    {
+        return indexOf(x) >= 0;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public int[] toArray()
+    {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void grow(int minCapacity)
+    {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, minCapacity));
+    }
+
+    private void checkIndex(int n)
+    {
+        if (n < 0 || n >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + n + " out of bounds for size " + size);
+        }
+    }
+}